@@ -0,0 +1,30 @@
+package study.querydsl.bench;
+
+import study.querydsl.dto.MemberSearchCondition;
+
+/**
+ * 벤치마크용 검색 조건. shape 비트(1=username, 2=teamName, 4=ageGoe, 8=ageLoe)로 16가지 조합을 만든다.
+ * BenchmarkContext.seed()로 넣은 데이터 기준으로 결과가 비지 않는 값을 사용한다.
+ */
+public final class BenchmarkConditions {
+
+    private BenchmarkConditions() {
+    }
+
+    public static MemberSearchCondition of(int shape) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        if ((shape & 1) != 0) {
+            condition.setUsername("member42");
+        }
+        if ((shape & 2) != 0) {
+            condition.setTeamName("team3");
+        }
+        if ((shape & 4) != 0) {
+            condition.setAgeGoe(20);
+        }
+        if ((shape & 8) != 0) {
+            condition.setAgeLoe(60);
+        }
+        return condition;
+    }
+}
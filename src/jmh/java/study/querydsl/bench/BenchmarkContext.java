@@ -0,0 +1,88 @@
+package study.querydsl.bench;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.querydsl.QuerydslApplication;
+import study.querydsl.repository.TeamStatsMaintainer;
+import study.querydsl.support.DataChangeTracker;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JMH 벤치마크용 스프링 컨텍스트 + 데이터 준비
+ *
+ * - 웹 서버 없이 컨텍스트만 띄운다.
+ * - build/jmh-db 아래 H2 파일 DB를 사용한다. 건수별로 DB가 따로 있고, 이미 같은 건수가 들어있으면 다시 넣지 않는다. (1000만 건은 한 번 넣는데 몇 분 걸린다)
+ * - 데이터는 결정적(deterministic)이다. i번째 회원: username=member{i}, age=i%100, team=i%teamCount
+ */
+public final class BenchmarkContext {
+
+    private static final int BATCH_SIZE = 10_000;
+
+    private BenchmarkContext() {
+    }
+
+    public static ConfigurableApplicationContext start(String dbName, String... extraArgs) {
+        List<String> args = new ArrayList<>(List.of(
+                //application.yml 보다 우선순위가 높도록 커맨드라인 인자로 넘긴다.
+                "--spring.profiles.active=bench", //local 프로파일의 InitMember가 돌지 않도록
+                "--spring.datasource.url=jdbc:h2:file:./build/jmh-db/" + dbName,
+                "--spring.jpa.hibernate.ddl-auto=update",
+                "--spring.cache.type=none", //결과 캐시가 켜져 있으면 쿼리 비용이 아니라 캐시 조회를 재게 된다.
+                "--spring.jpa.properties.hibernate.cache.use_second_level_cache=false", //2차 캐시도 마찬가지
+                "--spring.jpa.properties.hibernate.cache.use_query_cache=false",
+                "--spring.jpa.properties.hibernate.use_sql_comments=false",
+                "--logging.level.org.hibernate.SQL=warn",
+                "--decorator.datasource.p6spy.enable-logging=false",
+                "--spring.jpa.properties.hibernate.id.sequence.increment_size_mismatch_strategy=fix" //예전 allocationSize로 만든 DB 파일도 그대로 쓴다.
+        ));
+        args.addAll(List.of(extraArgs));
+
+        return new SpringApplicationBuilder(QuerydslApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args.toArray(String[]::new));
+    }
+
+    public static void seed(ConfigurableApplicationContext context, int teamCount, long memberCount) {
+        JdbcTemplate jdbc = new JdbcTemplate(context.getBean(DataSource.class));
+        Long existing = jdbc.queryForObject("select count(*) from member", Long.class);
+        if (existing != null && existing == memberCount) {
+            return;
+        }
+
+        jdbc.update("delete from member");
+        jdbc.update("delete from team");
+
+        List<Object[]> teams = new ArrayList<>();
+        for (int t = 1; t <= teamCount; t++) {
+            teams.add(new Object[]{(long) t, "team" + t});
+        }
+        jdbc.batchUpdate("insert into team (id, name) values (?, ?)", teams);
+
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (long i = 1; i <= memberCount; i++) {
+            batch.add(new Object[]{i, "member" + i, (int) (i % 100), i % teamCount + 1});
+            if (batch.size() == BATCH_SIZE) {
+                jdbc.batchUpdate("insert into member (member_id, username, age, team_id) values (?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbc.batchUpdate("insert into member (member_id, username, age, team_id) values (?, ?, ?, ?)", batch);
+        }
+
+        //직접 id를 넣었으니 이후 JPA insert와 겹치지 않도록 시퀀스를 뒤로 민다.
+        jdbc.execute("alter sequence member_seq restart with " + (memberCount + 1));
+        jdbc.execute("alter sequence team_seq restart with " + (teamCount + 1));
+
+        //JDBC로 직접 넣었으니 하이버네이트가 모른다. TeamNameDictionary 등이 다시 읽도록 알려준다.
+        DataChangeTracker tracker = context.getBean(DataChangeTracker.class);
+        tracker.onChange("team");
+        tracker.onChange("member");
+        context.getBean(TeamStatsMaintainer.class).rebuildAll();
+    }
+}
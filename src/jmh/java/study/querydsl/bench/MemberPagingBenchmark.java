@@ -0,0 +1,76 @@
+package study.querydsl.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberRepository;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * offset 페이징(searchPageComplexWithUtils) vs deferred join(searchPageDeferredJoin)
+ *
+ * ./gradlew jmh -PjmhIncludes=MemberPagingBenchmark
+ *
+ * depth: 조건에 맞는 전체 row 중 몇 % 위치의 페이지를 조회하는지 (0.9 = 뒤쪽 페이지)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MemberPagingBenchmark {
+
+    @Param({"1000000", "10000000"})
+    long rows;
+
+    @Param({"0.1", "0.9"})
+    double depth;
+
+    @Param({"20"})
+    int pageSize;
+
+    ConfigurableApplicationContext context;
+    MemberRepository memberRepository;
+    MemberSearchCondition condition;
+    Pageable pageable;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("members-" + rows);
+        BenchmarkContext.seed(context, 100, rows);
+        memberRepository = context.getBean(MemberRepository.class);
+
+        condition = new MemberSearchCondition();
+        condition.setAgeGoe(10); //age = i % 100 이므로 90%가 조건에 맞는다.
+
+        long matching = rows * 90 / 100;
+        pageable = PageRequest.of((int) (matching * depth / pageSize), pageSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> offset() {
+        return memberRepository.searchPageComplexWithUtils(condition, pageable);
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> deferredJoin() {
+        return memberRepository.searchPageDeferredJoin(condition, pageable);
+    }
+}
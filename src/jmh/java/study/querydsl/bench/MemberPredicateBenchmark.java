@@ -0,0 +1,168 @@
+package study.querydsl.bench;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.JPQLTemplates;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.repository.MemberJpaRepository;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 동적 조건 작성 방식 비교: BooleanBuilder (MemberJpaRepository.searchByBuilder) vs where절 파라미터 (MemberJpaRepository.search)
+ *
+ * - *Build     : 조건 + JPAQuery 조립까지
+ * - *Serialize : JPQL 문자열 직렬화까지 (QueryDSL이 호출마다 하는 일 전부)
+ * - *Fetch     : MemberJpaRepository 메소드 호출 = 실행까지 (1000건 DB)
+ *
+ * shape는 BenchmarkConditions 참고 (16가지 조건 조합). 호출당 할당은 gc 프로파일러의 gc.alloc.rate.norm
+ *
+ * ./gradlew jmh -PjmhIncludes=MemberPredicateBenchmark
+ * ./gradlew jmhCompare  (src/jmh/baseline.tsv 와 비교, 갱신은 jmhBaseline)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MemberPredicateBenchmark {
+
+    @Param({"0", "1", "2", "3", "4", "5", "6", "7", "8", "9", "10", "11", "12", "13", "14", "15"})
+    int shape;
+
+    ConfigurableApplicationContext context;
+    EntityManager em;
+    JPAQueryFactory queryFactory;
+    MemberJpaRepository memberJpaRepository;
+    MemberSearchCondition condition;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("members-1000");
+        BenchmarkContext.seed(context, 10, 1000);
+
+        em = context.getBean(EntityManagerFactory.class).createEntityManager();
+        queryFactory = new JPAQueryFactory(em);
+        memberJpaRepository = context.getBean(MemberJpaRepository.class);
+        condition = BenchmarkConditions.of(shape);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        em.close();
+        context.close();
+    }
+
+    @Benchmark
+    public JPAQuery<MemberTeamDto> builderBuild() {
+        return builderQuery();
+    }
+
+    @Benchmark
+    public JPAQuery<MemberTeamDto> whereParamBuild() {
+        return whereParamQuery();
+    }
+
+    @Benchmark
+    public String builderSerialize() {
+        return serialize(builderQuery());
+    }
+
+    @Benchmark
+    public String whereParamSerialize() {
+        return serialize(whereParamQuery());
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> builderFetch() {
+        return memberJpaRepository.searchByBuilder(condition);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> whereParamFetch() {
+        return memberJpaRepository.search(condition);
+    }
+
+    private String serialize(JPAQuery<?> query) {
+        JPQLSerializer serializer = new JPQLSerializer(JPQLTemplates.DEFAULT, em);
+        serializer.serialize(query.getMetadata(), false, null);
+        return serializer.toString();
+    }
+
+    //MemberJpaRepository.searchByBuilder()와 같은 쿼리
+    private JPAQuery<MemberTeamDto> builderQuery() {
+        BooleanBuilder builder = new BooleanBuilder();
+        if (StringUtils.hasText(condition.getUsername())) {
+            builder.and(member.username.eq(condition.getUsername()));
+        }
+        if (StringUtils.hasText(condition.getTeamName())) {
+            builder.and(team.name.eq(condition.getTeamName()));
+        }
+        if (condition.getAgeGoe() != null) {
+            builder.and(member.age.goe(condition.getAgeGoe()));
+        }
+        if (condition.getAgeLoe() != null) {
+            builder.and(member.age.loe(condition.getAgeLoe()));
+        }
+        return select().where(builder);
+    }
+
+    //MemberJpaRepository.search()와 같은 쿼리
+    private JPAQuery<MemberTeamDto> whereParamQuery() {
+        return select().where(usernameEq(condition.getUsername()),
+                teamNameEq(condition.getTeamName()),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe())
+        );
+    }
+
+    private JPAQuery<MemberTeamDto> select() {
+        return queryFactory
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")
+                ))
+                .from(member)
+                .leftJoin(member.team, team);
+    }
+
+    private BooleanExpression usernameEq(String username) {
+        return StringUtils.hasText(username) ? member.username.eq(username) : null;
+    }
+
+    private BooleanExpression teamNameEq(String teamName) {
+        return StringUtils.hasText(teamName) ? team.name.eq(teamName) : null;
+    }
+
+    private BooleanExpression ageGoe(Integer ageGoe) {
+        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    }
+
+    private BooleanExpression ageLoe(Integer ageLoe) {
+        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    }
+}
@@ -0,0 +1,138 @@
+package study.querydsl.bench;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Projections;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.jpa.HibernateHints;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.entity.Member;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 프로젝션 방식별 한 건당 비용 (QuerydslBasicTest의 프로젝션 예제들)
+ *  - tuple, bean(setter), fields(리플렉션 필드), constructor, queryProjection(QMemberDto) : username, age 두 컬럼
+ *  - queryProjectionWide : QMemberTeamDto 4개 컬럼 (검색 API들이 쓰는 모양)
+ *  - entity : Member 엔티티 (영속성 컨텍스트 + 스냅샷), entityReadOnly : 스냅샷 없이
+ *
+ * 전체 행을 읽는다. 행 수(rows)별로 비교해서 한 건당 비용을 본다.
+ * 처리량(Throughput)과 지연 분포(SampleTime: p50/p90/p99...), 할당률은 gc 프로파일러(gc.alloc.rate.norm = 호출당 바이트)로 본다.
+ *
+ * ./gradlew jmh -PjmhIncludes=MemberProjectionBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MemberProjectionBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    long rows;
+
+    ConfigurableApplicationContext context;
+    EntityManagerFactory emf;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("members-" + rows);
+        BenchmarkContext.seed(context, 100, rows);
+        emf = context.getBean(EntityManagerFactory.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Tuple> tuple() {
+        return fetch(queryFactory -> queryFactory
+                .select(member.username, member.age)
+                .from(member)
+                .fetch());
+    }
+
+    @Benchmark
+    public List<MemberDto> bean() {
+        return fetch(queryFactory -> queryFactory
+                .select(Projections.bean(MemberDto.class, member.username, member.age))
+                .from(member)
+                .fetch());
+    }
+
+    @Benchmark
+    public List<MemberDto> fields() {
+        return fetch(queryFactory -> queryFactory
+                .select(Projections.fields(MemberDto.class, member.username, member.age))
+                .from(member)
+                .fetch());
+    }
+
+    @Benchmark
+    public List<MemberDto> constructor() {
+        return fetch(queryFactory -> queryFactory
+                .select(Projections.constructor(MemberDto.class, member.username, member.age))
+                .from(member)
+                .fetch());
+    }
+
+    @Benchmark
+    public List<MemberDto> queryProjection() {
+        return fetch(queryFactory -> queryFactory
+                .select(new QMemberDto(member.username, member.age))
+                .from(member)
+                .fetch());
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> queryProjectionWide() {
+        return fetch(queryFactory -> queryFactory
+                .select(new QMemberTeamDto(member.id, member.username, member.age, member.team.id))
+                .from(member)
+                .fetch());
+    }
+
+    @Benchmark
+    public List<Member> entity() {
+        return fetch(queryFactory -> queryFactory
+                .selectFrom(member)
+                .fetch());
+    }
+
+    @Benchmark
+    public List<Member> entityReadOnly() {
+        return fetch(queryFactory -> queryFactory
+                .selectFrom(member)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .fetch());
+    }
+
+    //호출마다 새 영속성 컨텍스트. 이전 호출에서 읽은 엔티티가 쌓이지 않는다.
+    private <T> List<T> fetch(Function<JPAQueryFactory, List<T>> query) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            return query.apply(new JPAQueryFactory(em));
+        } finally {
+            em.close();
+        }
+    }
+}
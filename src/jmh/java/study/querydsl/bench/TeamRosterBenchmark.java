@@ -0,0 +1,103 @@
+package study.querydsl.bench;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.TeamRosterDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.TeamRepository;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 팀 + 소속 회원 목록
+ *  - naiveLoop : 팀 페이지 조회 후 팀마다 회원 조회 (팀 수만큼 쿼리)
+ *  - batchFetch : 팀 엔티티 페이지 + Team.members @BatchSize
+ *  - roster : TeamRepository.searchRoster (팀 1 + 회원 in 1 + count)
+ *
+ * ./gradlew jmh -PjmhIncludes=TeamRosterBenchmark
+ * 데이터: 팀 1000개, 회원 100만 (팀당 1000명)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TeamRosterBenchmark {
+
+    private static final int TEAMS = 1000;
+    private static final long MEMBERS = 1_000_000;
+
+    @Param({"10", "50"})
+    int pageSize;
+
+    ConfigurableApplicationContext context;
+    EntityManagerFactory emf;
+    TeamRepository teamRepository;
+    TransactionTemplate tx;
+    Pageable pageable;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("roster-" + TEAMS + "-" + MEMBERS);
+        BenchmarkContext.seed(context, TEAMS, MEMBERS);
+        emf = context.getBean(EntityManagerFactory.class);
+        teamRepository = context.getBean(TeamRepository.class);
+        tx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        tx.setReadOnly(true);
+        pageable = PageRequest.of(3, pageSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public long naiveLoop() {
+        EntityManager em = emf.createEntityManager();
+        try {
+            List<Team> teams = em.createQuery("select t from Team t order by t.id", Team.class)
+                    .setFirstResult((int) pageable.getOffset())
+                    .setMaxResults(pageable.getPageSize())
+                    .getResultList();
+            long members = 0;
+            for (Team team : teams) {
+                members += em.createQuery("select m from Member m where m.team = :team", Member.class)
+                        .setParameter("team", team)
+                        .getResultList()
+                        .size();
+            }
+            return members;
+        } finally {
+            em.close();
+        }
+    }
+
+    @Benchmark
+    public long batchFetch() {
+        return tx.execute(status -> teamRepository.findAll(pageable).stream()
+                .mapToLong(team -> team.getMembers().size())
+                .sum());
+    }
+
+    @Benchmark
+    public Page<TeamRosterDto> roster() {
+        return tx.execute(status -> teamRepository.searchRoster(pageable, (int) (MEMBERS / TEAMS))); //다른 방식과 같게 팀의 회원 전체
+    }
+}
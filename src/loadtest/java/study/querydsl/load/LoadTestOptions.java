@@ -0,0 +1,85 @@
+package study.querydsl.load;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 부하 테스트 옵션. --key=value 형식 (./gradlew loadTest --args="--members=1000000 --rate=500")
+ */
+final class LoadTestOptions {
+
+    //데이터 (MemberDataGenerator)
+    final long seed;
+    final long members;
+    final int teams;
+    final double teamSkew;        //팀 배정 zipf 지수. 0이면 균등, 1 근처면 소수 팀에 몰린다.
+    final AgeDistribution ageDistribution;
+    final int minAge;
+    final int maxAge;
+    final long nameCardinality;   //서로 다른 username 수. 0이면 모두 다르다. (작을수록 username 검색 결과가 커진다)
+
+    //부하
+    final List<String> endpoints;
+    final int rate;               //초당 요청 수 (고정 도착률, 응답을 기다리지 않는다)
+    final Duration warmup;
+    final Duration duration;
+    final Duration timeout;
+    final int pageSize;
+    final int maxPage;
+    final boolean cache;          //memberSearch 캐시, 2차 캐시 사용 여부 (기본은 꺼서 DB까지 재본다)
+    final String reportDir;
+    final List<String> threads;   //platform, virtual (virtual 프로파일, JDK 21). platform,virtual 이면 차례로 돌려서 비교
+    final int poolSize;           //커넥션 풀 크기 (가상 스레드는 동시 요청이 이 크기에 묶인다)
+
+    enum AgeDistribution {UNIFORM, NORMAL}
+
+    private LoadTestOptions(Map<String, String> values) {
+        seed = Long.parseLong(values.getOrDefault("seed", "42"));
+        members = Long.parseLong(values.getOrDefault("members", "100000"));
+        teams = Integer.parseInt(values.getOrDefault("teams", "100"));
+        teamSkew = Double.parseDouble(values.getOrDefault("team-skew", "0"));
+        ageDistribution = AgeDistribution.valueOf(values.getOrDefault("age-distribution", "uniform").toUpperCase());
+        minAge = Integer.parseInt(values.getOrDefault("min-age", "0"));
+        maxAge = Integer.parseInt(values.getOrDefault("max-age", "99"));
+        nameCardinality = Long.parseLong(values.getOrDefault("name-cardinality", "0"));
+
+        endpoints = Arrays.asList(values.getOrDefault("endpoints", "v1,v2,v3,v4").split(","));
+        rate = Integer.parseInt(values.getOrDefault("rate", "100"));
+        warmup = Duration.parse("PT" + values.getOrDefault("warmup", "10s").toUpperCase());
+        duration = Duration.parse("PT" + values.getOrDefault("duration", "30s").toUpperCase());
+        timeout = Duration.parse("PT" + values.getOrDefault("timeout", "10s").toUpperCase());
+        pageSize = Integer.parseInt(values.getOrDefault("page-size", "20"));
+        maxPage = Integer.parseInt(values.getOrDefault("max-page", "10"));
+        cache = Boolean.parseBoolean(values.getOrDefault("cache", "false"));
+        reportDir = values.getOrDefault("report-dir", "build/loadtest");
+        threads = Arrays.asList(values.getOrDefault("threads", "platform").split(","));
+        poolSize = Integer.parseInt(values.getOrDefault("pool-size", "10"));
+
+        if (teams <= 0 || members <= 0 || rate <= 0 || minAge > maxAge) {
+            throw new IllegalArgumentException("invalid options: " + values);
+        }
+    }
+
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("expected --key=value but was " + arg);
+            }
+            int eq = arg.indexOf('=');
+            values.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        return new LoadTestOptions(values);
+    }
+
+    @Override
+    public String toString() {
+        return "seed=" + seed + " members=" + members + " teams=" + teams + " teamSkew=" + teamSkew
+                + " age=" + ageDistribution + "[" + minAge + "," + maxAge + "] nameCardinality=" + nameCardinality
+                + " rate=" + rate + "/s warmup=" + warmup + " duration=" + duration + " pageSize=" + pageSize
+                + " maxPage=" + maxPage + " cache=" + cache + " poolSize=" + poolSize;
+    }
+}
@@ -0,0 +1,105 @@
+package study.querydsl.load;
+
+import study.querydsl.dto.MemberRow;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+
+/**
+ * 결정적(deterministic) 회원 데이터 + 검색 조건 생성기. 같은 옵션(seed 포함)이면 항상 같은 데이터, 같은 요청 순서가 나온다.
+ *
+ * - 팀: team0 ~ team{teams-1}, zipf(teamSkew) 분포로 배정 (0이면 균등)
+ * - 나이: [minAge, maxAge] 균등 또는 정규분포(가운데 평균, 범위/6 표준편차, 범위 밖은 잘라냄)
+ * - username: member{i % nameCardinality} (nameCardinality=0이면 member{i})
+ */
+final class MemberDataGenerator {
+
+    private final LoadTestOptions options;
+    private final double[] teamCdf;
+
+    MemberDataGenerator(LoadTestOptions options) {
+        this.options = options;
+        this.teamCdf = zipfCdf(options.teams, options.teamSkew);
+    }
+
+    Iterator<MemberRow> rows() {
+        SplittableRandom random = new SplittableRandom(options.seed);
+        return new Iterator<>() {
+            long next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < options.members;
+            }
+
+            @Override
+            public MemberRow next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                long i = next++;
+                return new MemberRow(username(i), age(random), "team" + team(random));
+            }
+        };
+    }
+
+    /**
+     * 요청용 검색 조건 (쿼리스트링). 엔드포인트마다 같은 seed면 같은 순서로 나온다.
+     * 페이징 없는 /v1/members가 테이블 전체를 읽지 않도록 teamName이나 username 중 하나는 항상 들어간다.
+     */
+    RequestSource requests(String endpoint) {
+        SplittableRandom random = new SplittableRandom(options.seed ^ endpoint.hashCode());
+        return () -> {
+            StringBuilder query = new StringBuilder();
+            if (random.nextInt(10) == 0) {
+                long cardinality = options.nameCardinality > 0 ? options.nameCardinality : options.members;
+                query.append("username=member").append(random.nextLong(cardinality));
+            } else {
+                query.append("teamName=team").append(team(random)); //데이터와 같은 분포로 뽑아야 인기 팀이 더 자주 검색된다.
+            }
+            if (random.nextInt(3) == 0) {
+                int from = age(random);
+                query.append("&ageGoe=").append(from).append("&ageLoe=").append(Math.min(options.maxAge, from + 10));
+            }
+            query.append("&page=").append(random.nextInt(options.maxPage)).append("&size=").append(options.pageSize);
+            return query.toString();
+        };
+    }
+
+    interface RequestSource {
+        String next();
+    }
+
+    private String username(long i) {
+        return "member" + (options.nameCardinality > 0 ? i % options.nameCardinality : i);
+    }
+
+    private int age(SplittableRandom random) {
+        int range = options.maxAge - options.minAge;
+        if (options.ageDistribution == LoadTestOptions.AgeDistribution.UNIFORM) {
+            return options.minAge + random.nextInt(range + 1);
+        }
+        double gaussian = random.nextGaussian() * range / 6.0 + options.minAge + range / 2.0;
+        return (int) Math.max(options.minAge, Math.min(options.maxAge, Math.round(gaussian)));
+    }
+
+    private int team(SplittableRandom random) {
+        int index = Arrays.binarySearch(teamCdf, random.nextDouble());
+        return Math.min(index >= 0 ? index : -index - 1, teamCdf.length - 1);
+    }
+
+    private static double[] zipfCdf(int n, double exponent) {
+        double[] cdf = new double[n];
+        double sum = 0;
+        for (int k = 0; k < n; k++) {
+            sum += 1 / Math.pow(k + 1, exponent);
+            cdf[k] = sum;
+        }
+        for (int k = 0; k < n; k++) {
+            cdf[k] /= sum;
+        }
+        return cdf;
+    }
+}
@@ -0,0 +1,223 @@
+package study.querydsl.load;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.querydsl.QuerydslApplication;
+import study.querydsl.dto.MemberBulkLoadResult;
+import study.querydsl.service.MemberBulkLoader;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * /v1 ~ /v4/members 부하 테스트 (같은 JVM에서 앱을 띄우고 HTTP로 호출한다)
+ *
+ * ./gradlew loadTest --args="--members=1000000 --teams=1000 --team-skew=1.1 --rate=300 --duration=60s"
+ * 플랫폼 스레드 vs 가상 스레드: ./gradlew loadTest -PjavaVersion=21 --args="--threads=platform,virtual --rate=1000"
+ * 옵션은 LoadTestOptions 참고
+ *
+ * - 인메모리 H2에 MemberDataGenerator로 만든 데이터를 MemberBulkLoader로 넣는다. (같은 옵션이면 같은 데이터)
+ * - 엔드포인트마다 차례로 warmup 후 duration 동안 초당 rate 건을 보낸다. 응답을 기다리지 않는 고정 도착률(open model)이다.
+ * - 지연은 "보냈어야 하는 시각"부터 잰다. 서버가 밀려서 늦게 보낸 시간도 지연에 포함된다. (coordinated omission 보정)
+ * - threads에 여러 모드를 주면 모드마다 앱을 새로 띄워서 같은 데이터, 같은 요청 순서로 반복한다.
+ * - 결과: 콘솔 표 + report-dir/{시각}.csv (모드/엔드포인트당 한 줄, 릴리즈 간 비교용) + {시각}-{모드}-{엔드포인트}.hgrm (HdrHistogram 분포)
+ *
+ * 부하 생성기와 앱이 같은 JVM이라 CPU를 나눠 쓴다. 절대값보다 같은 장비/옵션에서 잰 릴리즈 간 비교로 볼 것.
+ */
+public class MemberLoadTest {
+
+    private static final long MAX_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        System.out.println("load test: " + options);
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(options.timeout)
+                .build();
+
+        List<EndpointResult> results = new ArrayList<>();
+        for (String threads : options.threads) {
+            try (ConfigurableApplicationContext context = start(options, threads)) {
+                MemberDataGenerator generator = new MemberDataGenerator(options);
+                MemberBulkLoadResult loaded = context.getBean(MemberBulkLoader.class).load(generator.rows());
+                System.out.printf("[%s] loaded %d members, %d teams in %s%n", threads, loaded.getRows(), loaded.getCreatedTeams(), loaded.getElapsed());
+
+                int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+                for (String endpoint : options.endpoints) {
+                    MemberDataGenerator.RequestSource requests = generator.requests(endpoint);
+                    String base = "http://localhost:" + port + path(endpoint);
+                    run(client, base, requests, options, options.warmup, null); //결과 버림
+                    EndpointResult result = new EndpointResult(threads, endpoint);
+                    run(client, base, requests, options, options.duration, result);
+                    results.add(result);
+                    System.out.println(result.line(options));
+                }
+            }
+        }
+        report(options, results);
+    }
+
+    private static ConfigurableApplicationContext start(LoadTestOptions options, String threads) {
+        String profiles = switch (threads) {
+            case "platform" -> "loadtest"; //local 프로파일의 InitMember가 돌지 않도록
+            case "virtual" -> "loadtest,virtual";
+            default -> throw new IllegalArgumentException("unknown threads: " + threads + " (platform, virtual)");
+        };
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.profiles.active=" + profiles,
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:loadtest-" + threads + ";DB_CLOSE_DELAY=-1",
+                "--spring.datasource.hikari.maximum-pool-size=" + options.poolSize,
+                "--spring.jpa.hibernate.ddl-auto=create",
+                "--spring.jpa.properties.hibernate.format_sql=false",
+                "--spring.jpa.properties.hibernate.use_sql_comments=false",
+                "--logging.level.org.hibernate.SQL=warn",
+                "--decorator.datasource.p6spy.enable-logging=false"
+        ));
+        if (!options.cache) {
+            args.addAll(List.of(
+                    "--spring.cache.type=none",
+                    "--spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+                    "--spring.jpa.properties.hibernate.cache.use_query_cache=false"
+            ));
+        }
+        return new SpringApplicationBuilder(QuerydslApplication.class).run(args.toArray(String[]::new));
+    }
+
+    private static String path(String endpoint) {
+        return switch (endpoint) {
+            case "v1" -> "/v1/members";
+            case "v2" -> "/v2/members";
+            case "v3" -> "/v3/members";
+            case "v4" -> "/v4/members";
+            case "v4-deferred" -> "/v4/members?strategy=DEFERRED_JOIN";
+            case "v8" -> "/v8/members"; //v4 비동기 버전
+            case "v8-deferred" -> "/v8/members?strategy=DEFERRED_JOIN";
+            default -> throw new IllegalArgumentException("unknown endpoint: " + endpoint + " (v1, v2, v3, v4, v4-deferred, v8, v8-deferred)");
+        };
+    }
+
+    /**
+     * 초당 rate 건을 일정 간격으로 보낸다. 응답을 기다리지 않으므로 서버가 느려지면 동시 요청 수가 늘어난다.
+     */
+    private static void run(HttpClient client, String base, MemberDataGenerator.RequestSource requests,
+                            LoadTestOptions options, Duration length, EndpointResult result) throws InterruptedException {
+        long interval = TimeUnit.SECONDS.toNanos(1) / options.rate;
+        long count = length.toNanos() / interval;
+        AtomicLong inFlight = new AtomicLong();
+        long start = System.nanoTime();
+
+        for (long i = 0; i < count; i++) {
+            long intended = start + i * interval;
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            HttpRequest request = HttpRequest.newBuilder(URI.create(base + (base.contains("?") ? "&" : "?") + requests.next()))
+                    .timeout(options.timeout)
+                    .GET()
+                    .build();
+            inFlight.incrementAndGet();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        inFlight.decrementAndGet();
+                        if (result != null) {
+                            result.record(System.nanoTime() - intended, error == null && response.statusCode() == 200);
+                        }
+                    });
+        }
+
+        //남은 응답 대기 (timeout까지)
+        long deadline = System.nanoTime() + options.timeout.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        if (result != null) {
+            result.finish(System.nanoTime() - start, inFlight.get());
+        }
+    }
+
+    private static void report(LoadTestOptions options, List<EndpointResult> results) throws IOException {
+        Path dir = Path.of(options.reportDir);
+        Files.createDirectories(dir);
+        String name = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+
+        List<String> lines = new ArrayList<>();
+        lines.add("# " + options);
+        lines.add(EndpointResult.HEADER);
+        for (EndpointResult result : results) {
+            lines.add(result.line(options));
+            try (PrintStream out = new PrintStream(Files.newOutputStream(dir.resolve(name + "-" + result.threads + "-" + result.endpoint + ".hgrm")))) {
+                result.histogram.outputPercentileDistribution(out, 1_000_000.0); //ms 단위
+            }
+        }
+        Path csv = dir.resolve(name + ".csv");
+        Files.write(csv, lines);
+        System.out.println();
+        lines.forEach(System.out::println);
+        System.out.println("report: " + csv.toAbsolutePath());
+    }
+
+    private static final class EndpointResult {
+
+        static final String HEADER = "threads,endpoint,target_rps,achieved_rps,requests,errors,unfinished,p50_ms,p90_ms,p99_ms,p99.9_ms,max_ms";
+
+        final String threads;
+        final String endpoint;
+        final Recorder recorder = new Recorder(MAX_LATENCY_NANOS, 3); //여러 스레드에서 동시에 기록
+        final AtomicLong errors = new AtomicLong();
+        Histogram histogram;
+        long elapsedNanos;
+        long unfinished;
+
+        EndpointResult(String threads, String endpoint) {
+            this.threads = threads;
+            this.endpoint = endpoint;
+        }
+
+        void record(long latencyNanos, boolean success) {
+            if (!success) {
+                errors.incrementAndGet(); //실패도 지연에는 넣는다. (빨리 실패하면 좋아 보이는 착시는 errors로 본다)
+            }
+            recorder.recordValue(Math.min(latencyNanos, MAX_LATENCY_NANOS));
+        }
+
+        void finish(long elapsedNanos, long unfinished) {
+            this.histogram = recorder.getIntervalHistogram();
+            this.elapsedNanos = elapsedNanos;
+            this.unfinished = unfinished;
+        }
+
+        String line(LoadTestOptions options) {
+            long requests = histogram.getTotalCount();
+            return String.format("%s,%s,%d,%.1f,%d,%d,%d,%.2f,%.2f,%.2f,%.2f,%.2f",
+                    threads, endpoint, options.rate, (requests - errors.get()) / (elapsedNanos / 1e9), requests, errors.get(), unfinished,
+                    millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(90)),
+                    millis(histogram.getValueAtPercentile(99)), millis(histogram.getValueAtPercentile(99.9)),
+                    millis(histogram.getMaxValue()));
+        }
+
+        private static double millis(long nanos) {
+            return nanos / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package study.querydsl.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 캐시 설정은 application.yml의 spring.cache 참고 (Caffeine, 크기/TTL 제한)
+ * hit/miss 통계는 /actuator/metrics/cache.gets?tag=name:memberSearch
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+}
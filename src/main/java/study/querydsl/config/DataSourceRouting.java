@@ -0,0 +1,45 @@
+package study.querydsl.config;
+
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Supplier;
+
+/**
+ * 지금 스레드의 조회를 복제본으로 보낼지 정한다. (RoutingDataSource가 커넥션을 꺼낼 때 물어본다)
+ *
+ * - @Transactional(readOnly = true) 트랜잭션 -> 복제본
+ * - 트랜잭션 밖에서 onReplica()로 감싼 작업 -> 복제본 (ReadOnlyQueryExecutor처럼 스프링 트랜잭션 없이 EntityManager를 여는 경우)
+ * - 나머지(쓰기 트랜잭션, 트랜잭션 없음) -> primary
+ *
+ * 쓰기 트랜잭션 안에서 readOnly 메소드를 호출하면 바깥 트랜잭션에 참여하므로 primary에서 읽는다. (방금 쓴 데이터가 보인다)
+ * 복제본을 원해도 이 서버에서 방금 쓰기가 있었다면 RoutingDataSource가 잠시 primary로 보낸다. (ReplicaWriteFence)
+ * 라우팅이 꺼져 있으면(member.datasource.routing.enabled=false) 아무 효과가 없다.
+ */
+public final class DataSourceRouting {
+
+    private static final ThreadLocal<Boolean> REPLICA = new ThreadLocal<>();
+
+    private DataSourceRouting() {
+    }
+
+    public static boolean isReplicaPreferred() {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        }
+        return Boolean.TRUE.equals(REPLICA.get());
+    }
+
+    public static <T> T onReplica(Supplier<T> work) {
+        Boolean previous = REPLICA.get();
+        REPLICA.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                REPLICA.remove();
+            } else {
+                REPLICA.set(previous);
+            }
+        }
+    }
+}
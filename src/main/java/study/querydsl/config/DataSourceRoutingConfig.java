@@ -0,0 +1,64 @@
+package study.querydsl.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import java.time.Duration;
+
+/**
+ * 읽기/쓰기 분리 (member.datasource.routing.enabled=true 일 때만)
+ *
+ * 쓰기는 spring.datasource(primary), @Transactional(readOnly = true)와 MemberRepositoryCustom 검색은 복제본으로 보낸다.
+ * 꺼져 있으면 이 설정이 없는 것과 같다. (스프링 부트 기본 DataSource 하나)
+ *
+ * primary/복제본 풀은 빈으로 등록하지 않고 맨 바깥의 프록시 하나만 DataSource 빈으로 등록한다.
+ * DataSource 빈이 여러 개면 JPA/JdbcTemplate 자동 설정이 하나를 고르지 못하고, p6spy가 각각을 감싸서 SQL이 두 번 기록된다.
+ *
+ * 이 서버에서 쓰기가 있으면 max-lag + check-interval 동안 읽기도 primary로 보낸다. (ReplicaWriteFence)
+ * lag는 check-interval마다 재므로 마지막 확인 이후 그만큼 더 뒤처졌을 수 있다.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "member.datasource.routing", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ReplicaRoutingProperties.class)
+public class DataSourceRoutingConfig {
+
+    @Bean
+    LazyRoutingDataSource dataSource(DataSourceProperties dataSourceProperties, ReplicaRoutingProperties routingProperties) {
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+        Duration primaryAfterWrite = routingProperties.getMaxLag().plus(routingProperties.getCheckInterval());
+        return new LazyRoutingDataSource(new RoutingDataSource(primary, new ReplicaSelector(routingProperties), primaryAfterWrite));
+    }
+
+    @Bean
+    ReplicaWriteFence replicaWriteFence(LazyRoutingDataSource dataSource) {
+        return new ReplicaWriteFence(dataSource.getRoutingDataSource());
+    }
+
+    /**
+     * 첫 SQL을 실행할 때 커넥션을 꺼낸다. (그때는 readOnly 여부가 정해져 있다) 종료 시 풀을 닫는다.
+     */
+    public static class LazyRoutingDataSource extends LazyConnectionDataSourceProxy implements AutoCloseable {
+
+        private final RoutingDataSource routingDataSource;
+
+        public LazyRoutingDataSource(RoutingDataSource routingDataSource) {
+            super(routingDataSource);
+            this.routingDataSource = routingDataSource;
+        }
+
+        public RoutingDataSource getRoutingDataSource() {
+            return routingDataSource;
+        }
+
+        @Override
+        public void close() throws Exception {
+            routingDataSource.close();
+        }
+    }
+}
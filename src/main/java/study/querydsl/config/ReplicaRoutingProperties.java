@@ -0,0 +1,36 @@
+package study.querydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * member.datasource.routing.* (application.yml 참고)
+ */
+@Getter @Setter
+@ConfigurationProperties("member.datasource.routing")
+public class ReplicaRoutingProperties {
+
+    private boolean enabled;
+    private List<Replica> replicas = new ArrayList<>();
+    private Duration maxLag = Duration.ofSeconds(10); //이보다 뒤처진 복제본은 쓰지 않는다.
+    private Duration checkInterval = Duration.ofSeconds(5);
+    private Duration connectionTimeout = Duration.ofSeconds(2); //복제본 커넥션을 이 시간 안에 못 얻으면 primary로
+
+    @Getter @Setter
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+        /**
+         * 복제 지연(초)을 숫자 하나로 돌려주는 쿼리. 없으면 커넥션 검사만 한다.
+         * ex) PostgreSQL: select coalesce(extract(epoch from now() - pg_last_xact_replay_timestamp()), 0)
+         */
+        private String lagQuery;
+    }
+}
@@ -0,0 +1,152 @@
+package study.querydsl.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 복제본 커넥션 풀과 상태(정상/장애/지연)를 들고 있고, 조회할 복제본을 고른다.
+ *
+ * - check-interval 마다 복제본마다 커넥션 검사 + lag-query로 지연을 잰다. max-lag를 넘거나 실패하면 빼고, 회복되면 다시 넣는다.
+ * - 정상인 복제본끼리는 라운드 로빈. 정상인 복제본이 하나도 없으면 null (RoutingDataSource가 primary로 보낸다)
+ * - 검사 사이에 커넥션을 못 얻은 복제본은 markDown()으로 바로 뺀다. 다음 검사에서 회복되면 다시 들어온다.
+ */
+@Slf4j
+public class ReplicaSelector implements AutoCloseable {
+
+    private final List<Replica> replicas = new ArrayList<>();
+    private final Duration maxLag;
+    private final AtomicInteger next = new AtomicInteger();
+    private final ScheduledExecutorService checker;
+
+    public ReplicaSelector(ReplicaRoutingProperties properties) {
+        this.maxLag = properties.getMaxLag();
+        for (int i = 0; i < properties.getReplicas().size(); i++) {
+            ReplicaRoutingProperties.Replica config = properties.getReplicas().get(i);
+            HikariDataSource dataSource = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(config.getUrl())
+                    .username(config.getUsername())
+                    .password(config.getPassword())
+                    .build();
+            dataSource.setPoolName("replica-" + i);
+            dataSource.setMaximumPoolSize(config.getMaximumPoolSize());
+            dataSource.setConnectionTimeout(properties.getConnectionTimeout().toMillis());
+            dataSource.setInitializationFailTimeout(-1); //복제본이 죽어 있어도 애플리케이션은 뜬다.
+            replicas.add(new Replica("replica-" + i, dataSource, config.getLagQuery()));
+        }
+
+        checkHealth();
+        checker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-health");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = properties.getCheckInterval().toMillis();
+        checker.scheduleWithFixedDelay(this::checkHealth, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 정상인 복제본 중 하나. 없으면 null
+     */
+    public Replica select() {
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(size, 1));
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    public void markDown(Replica replica, Exception cause) {
+        if (replica.healthy) {
+            replica.healthy = false;
+            log.warn("{} marked down, reads fall back to primary until next check: {}", replica.name, cause.toString());
+        }
+    }
+
+    public void checkHealth() {
+        for (Replica replica : replicas) {
+            boolean healthy;
+            String reason;
+            try {
+                Duration lag = replica.measureLag();
+                healthy = lag.compareTo(maxLag) <= 0;
+                reason = "lag=" + lag;
+            } catch (Exception e) { //다음 검사까지 빠져 있으면 되므로 삼킨다.
+                healthy = false;
+                reason = e.toString();
+            }
+            if (healthy != replica.healthy) {
+                log.warn("{} {} ({})", replica.name, healthy ? "is back" : "marked down", reason);
+            }
+            replica.healthy = healthy;
+        }
+    }
+
+    @Override
+    public void close() {
+        checker.shutdownNow();
+        replicas.forEach(replica -> replica.dataSource.close());
+    }
+
+    public static class Replica {
+
+        private final String name;
+        private final HikariDataSource dataSource;
+        private final String lagQuery;
+        private volatile boolean healthy;
+
+        private Replica(String name, HikariDataSource dataSource, String lagQuery) {
+            this.name = name;
+            this.dataSource = dataSource;
+            this.lagQuery = lagQuery;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public DataSource getDataSource() {
+            return dataSource;
+        }
+
+        public boolean isHealthy() {
+            return healthy;
+        }
+
+        private Duration measureLag() throws SQLException {
+            try (Connection connection = dataSource.getConnection()) {
+                if (lagQuery == null) {
+                    if (!connection.isValid(2)) {
+                        throw new SQLException("connection is not valid");
+                    }
+                    return Duration.ZERO;
+                }
+                try (Statement statement = connection.createStatement();
+                     ResultSet rs = statement.executeQuery(lagQuery)) {
+                    if (!rs.next()) {
+                        throw new SQLException("lag query returned no row");
+                    }
+                    return Duration.ofMillis((long) (rs.getDouble(1) * 1000));
+                }
+            }
+        }
+    }
+}
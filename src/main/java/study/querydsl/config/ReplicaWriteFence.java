@@ -0,0 +1,29 @@
+package study.querydsl.config;
+
+import org.springframework.core.Ordered;
+import study.querydsl.support.DataChangeListener;
+
+/**
+ * 테이블이 바뀌면(DataChangeTracker) 잠시 동안 읽기를 primary로 보낸다. (RoutingDataSource.onLocalWrite)
+ *
+ * 캐시 비우기(MemberSearchCacheEvictor), 버전 증가(DataVersions), 팀 이름 사전보다 먼저 실행되어야 한다.
+ * 그 사이에 들어온 조회가 복제본의 옛 데이터로 캐시를 다시 채우지 못하게.
+ */
+public class ReplicaWriteFence implements DataChangeListener, Ordered {
+
+    private final RoutingDataSource routingDataSource;
+
+    public ReplicaWriteFence(RoutingDataSource routingDataSource) {
+        this.routingDataSource = routingDataSource;
+    }
+
+    @Override
+    public void onDataChange(String table) {
+        routingDataSource.onLocalWrite();
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
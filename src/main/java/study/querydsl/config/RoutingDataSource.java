@@ -0,0 +1,77 @@
+package study.querydsl.config;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 커넥션을 꺼내는 시점에 primary / 복제본 중 하나를 고른다. (DataSourceRouting, ReplicaSelector)
+ *
+ * 트랜잭션 시작 시점에는 아직 readOnly 여부가 동기화되지 않았으므로 LazyConnectionDataSourceProxy로 감싸서
+ * 첫 SQL을 실행할 때 커넥션을 꺼내도록 해야 한다. (DataSourceRoutingConfig)
+ *
+ * AbstractRoutingDataSource 대신 직접 구현한 이유: 복제본 커넥션을 못 얻었을 때 그 요청을 primary로 돌리려면 getConnection()을 감싸야 한다.
+ *
+ * 이 서버에서 쓰기가 있으면(onLocalWrite) 그 뒤 primaryAfterWrite 동안은 읽기도 primary로 보낸다.
+ * 커밋 직후 캐시 비우기/ETag 버전 증가/팀 이름 사전 재로딩이 일어나는데, 그 다음 조회가 아직 따라오지 못한 복제본에서 읽으면
+ * 쓰기 전 데이터가 다시 캐시되고 새 ETag로 나간다. (다른 서버의 쓰기는 알 수 없다)
+ */
+public class RoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private final DataSource primary;
+    private final ReplicaSelector replicas;
+    private final long primaryAfterWriteNanos;
+    private final AtomicLong primaryUntil = new AtomicLong(System.nanoTime());
+
+    public RoutingDataSource(DataSource primary, ReplicaSelector replicas, Duration primaryAfterWrite) {
+        this.primary = primary;
+        this.replicas = replicas;
+        this.primaryAfterWriteNanos = primaryAfterWrite.toNanos();
+    }
+
+    /**
+     * 쓰기 SQL이 나갈 때와 트랜잭션이 끝날 때 호출된다. (ReplicaWriteFence) 그때부터 primaryAfterWrite 동안 primary에서 읽는다.
+     */
+    public void onLocalWrite() {
+        long until = System.nanoTime() + primaryAfterWriteNanos;
+        primaryUntil.accumulateAndGet(until, (current, next) -> next - current > 0 ? next : current);
+    }
+
+    boolean isWriteFenced() {
+        return primaryUntil.get() - System.nanoTime() > 0;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!DataSourceRouting.isReplicaPreferred() || isWriteFenced()) {
+            return primary.getConnection();
+        }
+        ReplicaSelector.Replica replica = replicas.select();
+        if (replica == null) {
+            return primary.getConnection(); //정상인 복제본이 없다.
+        }
+        try {
+            return replica.getDataSource().getConnection();
+        } catch (SQLException e) {
+            replicas.markDown(replica, e);
+            return primary.getConnection();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    @Override
+    public void close() throws Exception {
+        replicas.close();
+        if (primary instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+}
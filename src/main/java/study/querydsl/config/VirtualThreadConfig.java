@@ -0,0 +1,49 @@
+package study.querydsl.config;
+
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * virtual 프로파일: 요청 처리를 가상 스레드로 (JDK 21 이상, ./gradlew bootRun -PjavaVersion=21 --args='--spring.profiles.active=local,virtual')
+ *
+ * 기본 톰캣은 플랫폼 스레드 풀(server.tomcat.threads.max=200)이라 JDBC에서 막힌 요청 수만큼 스레드를 잡고 있는다.
+ * 가상 스레드는 막히면 캐리어 스레드를 놓아주므로 동시 요청 수가 스레드 풀 크기에 묶이지 않는다. (대신 커넥션 풀 크기에 묶인다)
+ * - 톰캣 요청 스레드, StreamingResponseBody 등 MVC 비동기(applicationTaskExecutor)를 요청마다 새 가상 스레드로
+ * - synchronized 안에서 막히면 캐리어 스레드가 고정(pinning)된다. VirtualThreadPinningMonitor가 JFR로 감시한다.
+ *
+ * 빌드는 sourceCompatibility 17 이라서 VirtualThreads(리플렉션)로 만든다. JDK 17에서 이 프로파일을 켜면 시작할 때 실패한다.
+ */
+@Configuration
+@Profile("virtual")
+public class VirtualThreadConfig {
+
+    private final ThreadFactory requestThreads;
+    private final ThreadFactory taskThreads;
+
+    public VirtualThreadConfig() {
+        this.requestThreads = VirtualThreads.factory("http-vt-")
+                .orElseThrow(() -> new IllegalStateException("virtual profile requires JDK 21+ (running " + Runtime.version() + ")"));
+        this.taskThreads = VirtualThreads.factory("task-vt-").orElseThrow();
+    }
+
+    @Bean
+    TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(runnable -> requestThreads.newThread(runnable).start());
+    }
+
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+            AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME})
+    AsyncTaskExecutor applicationTaskExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor();
+        executor.setThreadFactory(taskThreads);
+        return executor;
+    }
+}
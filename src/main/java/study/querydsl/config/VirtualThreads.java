@@ -0,0 +1,35 @@
+package study.querydsl.config;
+
+import java.lang.reflect.Method;
+import java.util.Optional;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 가상 스레드(JDK 21+) 헬퍼
+ *
+ * 빌드는 sourceCompatibility 17 이라서 Thread.ofVirtual()을 직접 호출할 수 없다.
+ * 리플렉션으로 찾아보고, 실행 중인 JDK가 지원하지 않으면 Optional.empty()를 돌려준다. (호출하는 쪽에서 플랫폼 스레드로 fallback)
+ */
+public final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    public static boolean isSupported() {
+        return factory("probe-").isPresent();
+    }
+
+    public static Optional<ThreadFactory> factory(String namePrefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            //구현 클래스(ThreadBuilders$VirtualThreadBuilder)는 public이 아니라서 public 인터페이스인 Thread.Builder의 메소드로 호출해야 한다.
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Method name = builderType.getMethod("name", String.class, long.class);
+            Method factory = builderType.getMethod("factory");
+            builder = name.invoke(builder, namePrefix, 0L);
+            return Optional.of((ThreadFactory) factory.invoke(builder));
+        } catch (ReflectiveOperationException e) {
+            return Optional.empty();
+        }
+    }
+}
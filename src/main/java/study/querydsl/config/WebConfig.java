@@ -0,0 +1,24 @@
+package study.querydsl.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import study.querydsl.support.DataVersionETagInterceptor;
+
+/**
+ * 조회 API 조건부 GET (ETag / If-None-Match -> 304)
+ */
+@Configuration
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "member.etag.enabled", havingValue = "true", matchIfMissing = true)
+public class WebConfig implements WebMvcConfigurer {
+
+    private final DataVersionETagInterceptor dataVersionETagInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(dataVersionETagInterceptor);
+    }
+}
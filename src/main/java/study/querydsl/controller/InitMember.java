@@ -1,14 +1,14 @@
 package study.querydsl.controller;
 
 import jakarta.annotation.PostConstruct;
-import jakarta.persistence.EntityManager;
-import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
-import study.querydsl.entity.Member;
-import study.querydsl.entity.Team;
+import study.querydsl.dto.MemberRow;
+import study.querydsl.service.MemberBulkLoader;
+
+import java.util.stream.LongStream;
 
 @Profile("local")
 @Component
@@ -23,23 +23,19 @@ public class InitMember {
     }
 
     @Component
+    @RequiredArgsConstructor
     static class InitMemberService {
-        @PersistenceContext
-        private EntityManager em;
-
-        @Transactional
-        public void init() {
-            Team teamA = new Team("teamA");
-            Team teamB = new Team("teamB");
-            em.persist(teamA);
-            em.persist(teamB);
-
-            for (int i = 0; i < 100; i++) {
-                Team selectedTeam =  i % 2 == 0 ? teamA : teamB;
-                em.persist(new Member("member"+i, i, selectedTeam));
-            }
+        private final MemberBulkLoader memberBulkLoader;
 
+        @Value("${member.init.count:100}")
+        private long count;
 
+        //em.persist()를 한 건씩 하던 것을 MemberBulkLoader로 변경 (member.init.count로 천만 건까지 넣을 수 있다)
+        //청크마다 커밋하므로 여기에는 @Transactional을 붙이지 않는다.
+        public void init() {
+            memberBulkLoader.load(LongStream.range(0, count)
+                    .mapToObj(i -> new MemberRow("member" + i, (int) (i % 100), i % 2 == 0 ? "teamA" : "teamB"))
+                    .iterator());
         }
     }
 
@@ -1,28 +1,87 @@
 package study.querydsl.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.MediaType;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.AsyncRequestTimeoutException;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import study.querydsl.dto.MemberKeysetPage;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberKeysetCursor;
 import study.querydsl.repository.MemberRepository;
-
+import study.querydsl.repository.MemberSearchAsyncExecutor;
+import study.querydsl.repository.PagingStrategy;
+import study.querydsl.support.DataVersionETag;
+import study.querydsl.support.SqlStatementCounter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequiredArgsConstructor
+@DataVersionETag({"member", "team"}) //member/team 변경이 없으면 If-None-Match에 304 (DataVersionETagInterceptor)
 public class MemberController {
 
     private final MemberJpaRepository memberJpaRepository;
     private final MemberRepository memberRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+    private final MemberSearchAsyncExecutor memberSearchAsyncExecutor;
+
+    @Value("${member.search.stream.timeout:10m}")
+    private Duration streamTimeout;
 
 
     @GetMapping("/v1/members")
     public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition) {
-        return memberJpaRepository.search(condition);
+        return memberJpaRepository.searchByTemplate(condition); //QueryDSL 버전과 결과는 같다. (search)
+    }
+
+    /**
+     * /v1/members 의 스트리밍 버전 - 한 줄에 회원 하나씩 JSON(NDJSON)으로 바로 응답에 쓴다.
+     * 전체 결과를 List로 모으지 않기 때문에 건수가 많아도 메모리 사용량이 일정하다.
+     * 별도 스레드(WebAsyncTask)에서 실행되므로 커서를 여는 트랜잭션도 그 안에서 직접 연다.
+     * 오래 걸릴 수 있어서 비동기 타임아웃을 이 요청에만 길게 준다. (member.search.stream.timeout)
+     */
+    @GetMapping(value = "/v1/members/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public WebAsyncTask<Void> searchMemberV1Stream(MemberSearchCondition condition, HttpServletResponse response) {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        return new WebAsyncTask<>(streamTimeout.toMillis(), SqlStatementCounter.propagate(() -> { //요청의 SQL 통계에 포함
+            OutputStream out = response.getOutputStream();
+            TransactionTemplate readOnlyTx = new TransactionTemplate(transactionManager);
+            readOnlyTx.setReadOnly(true);
+            readOnlyTx.executeWithoutResult(status ->
+                    memberRepository.searchStream(condition, row -> writeLine(out, row)));
+            out.flush();
+            return null;
+        }));
+    }
+
+    private void writeLine(OutputStream out, MemberTeamDto row) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(row)); //writeValue(out, ..)는 스트림을 닫아버려서 사용하면 안된다.
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); //클라이언트가 끊으면 여기서 트랜잭션째로 중단된다.
+        }
     }
 
     @GetMapping("/v2/members")
@@ -35,15 +94,70 @@ public class MemberController {
         return memberRepository.searchPageComplex(condition, pageable);
     }
 
+    /**
+     * strategy=DEFERRED_JOIN 이면 id만 먼저 페이징한 뒤 조인한다. (깊은 페이지용)
+     */
     @GetMapping("/v4/members")
-    public Page<MemberTeamDto> searchMemberV4(MemberSearchCondition condition, Pageable pageable) {
+    public Page<MemberTeamDto> searchMemberV4(MemberSearchCondition condition, Pageable pageable,
+                                              @RequestParam(defaultValue = "OFFSET") PagingStrategy strategy) {
+        if (strategy == PagingStrategy.DEFERRED_JOIN) {
+            return memberRepository.searchPageDeferredJoin(condition, pageable);
+        }
         return memberRepository.searchPageComplexWithUtils(condition, pageable);
     }
 
+    /**
+     * Keyset 페이징 - 응답의 nextCursor를 다음 요청의 cursor로 넘기면 된다.
+     * ex) /v5/members?teamName=teamA&sort=AGE&size=20&cursor=QUdFOjQyOjMw
+     */
+    @GetMapping("/v5/members")
+    public MemberKeysetPage searchMemberV5(MemberSearchCondition condition,
+                                           @RequestParam(required = false) String cursor,
+                                           @RequestParam(defaultValue = "ID") MemberKeysetCursor.Sort sort,
+                                           @RequestParam(defaultValue = "20") int size) {
+        return memberRepository.searchKeyset(condition, cursor, sort, size);
+    }
 
+    /**
+     * Slice - count 쿼리 없이 hasNext만 내려준다. (무한 스크롤용)
+     */
+    @GetMapping("/v6/members")
+    public Slice<MemberTeamDto> searchMemberV6(MemberSearchCondition condition, Pageable pageable) {
+        return memberRepository.searchSlice(condition, pageable);
+    }
 
+    /**
+     * content 쿼리와 count 쿼리를 동시에 실행하는 페이징
+     */
+    @GetMapping("/v7/members")
+    public Page<MemberTeamDto> searchMemberV7(MemberSearchCondition condition, Pageable pageable) {
+        return memberRepository.searchPageParallel(condition, pageable);
+    }
 
-
-
-
+    /**
+     * /v4/members 의 비동기 버전. 조회는 MemberSearchAsyncExecutor(커넥션 풀 크기)에서 돌고 서블릿 스레드는 바로 반납된다.
+     * executor 큐가 꽉 차거나 member.search.async.timeout 안에 못 끝나면 503
+     * 타임아웃이나 클라이언트 연결이 끊기면 큐에 있거나 실행 중인 조회도 취소한다.
+     */
+    @GetMapping("/v8/members")
+    public DeferredResult<Page<MemberTeamDto>> searchMemberV8(MemberSearchCondition condition, Pageable pageable,
+                                                              @RequestParam(defaultValue = "OFFSET") PagingStrategy strategy) {
+        CompletableFuture<Page<MemberTeamDto>> future = strategy == PagingStrategy.DEFERRED_JOIN
+                ? memberRepository.searchPageDeferredJoinAsync(condition, pageable)
+                : memberRepository.searchPageComplexWithUtilsAsync(condition, pageable);
+
+        DeferredResult<Page<MemberTeamDto>> result = new DeferredResult<>(memberSearchAsyncExecutor.getTimeout().toMillis());
+        future.whenComplete((page, e) -> {
+            if (e == null) {
+                result.setResult(page);
+            } else if (MemberSearchAsyncExecutor.isTimeout(e)) {
+                result.setErrorResult(new AsyncRequestTimeoutException()); //DeferredResult 자체 타임아웃과 같은 503
+            } else {
+                result.setErrorResult(e instanceof CompletionException ? e.getCause() : e);
+            }
+        });
+        result.onTimeout(() -> future.cancel(true));
+        result.onError(e -> future.cancel(true));
+        return result;
+    }
 }
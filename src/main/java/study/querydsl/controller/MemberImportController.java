@@ -0,0 +1,40 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.dto.MemberImportResult;
+import study.querydsl.service.MemberImportFormat;
+import study.querydsl.service.MemberImportService;
+
+import java.io.InputStream;
+
+@RestController
+@RequiredArgsConstructor
+public class MemberImportController {
+
+    private final MemberImportService memberImportService;
+
+    /**
+     * 회원 대량 가져오기 (Content-Type: text/csv 또는 application/x-ndjson)
+     * 중간에 실패하면 500과 함께 resumeFrom을 돌려준다. 같은 파일을 skip=resumeFrom 으로 다시 보내면 이어서 넣는다.
+     * 파일 형식이 잘못된 줄이 있으면 400 (그 줄이 속한 청크부터 다시 보내야 한다)
+     */
+    @PostMapping(value = "/v1/members/import", consumes = {MemberImportFormat.CSV_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<MemberImportResult> importMembers(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                            @RequestParam(defaultValue = "0") long skip,
+                                                            InputStream body) {
+        MemberImportResult result = memberImportService.importMembers(body, MemberImportFormat.of(contentType), skip);
+        if (result.isCompleted()) {
+            return ResponseEntity.ok(result);
+        }
+        HttpStatus status = result.isBadInput() ? HttpStatus.BAD_REQUEST : HttpStatus.INTERNAL_SERVER_ERROR;
+        return ResponseEntity.status(status).body(result);
+    }
+}
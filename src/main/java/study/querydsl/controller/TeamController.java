@@ -0,0 +1,43 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.dto.TeamRosterDto;
+import study.querydsl.dto.TeamStatsDto;
+import study.querydsl.repository.InvalidPageSizeException;
+import study.querydsl.repository.TeamRepository;
+import study.querydsl.support.DataVersionETag;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+@DataVersionETag({"member", "team"}) //member/team 변경이 없으면 If-None-Match에 304 (DataVersionETagInterceptor)
+public class TeamController {
+
+    private final TeamRepository teamRepository;
+
+    @Value("${member.roster.max-members-per-team:100}")
+    private int maxMembersPerTeam;
+
+    //팀 + 소속 회원. 페이지 크기와 상관없이 쿼리 2~3번 (TeamRepositoryImpl.searchRoster 참고)
+    //회원은 팀마다 membersPerTeam 명까지 (최대 member.roster.max-members-per-team)
+    @GetMapping("/v1/teams/roster")
+    public Page<TeamRosterDto> teamRoster(Pageable pageable, @RequestParam(defaultValue = "20") int membersPerTeam) {
+        if (membersPerTeam < 1 || membersPerTeam > maxMembersPerTeam) {
+            throw new InvalidPageSizeException("membersPerTeam must be between 1 and " + maxMembersPerTeam + ": " + membersPerTeam);
+        }
+        return teamRepository.searchRoster(pageable, membersPerTeam);
+    }
+
+    //팀별 회원 수, 평균/최소/최대 나이. 회원 전체를 group by 하지 않고 team_stats(팀당 한 줄)에서 읽는다.
+    @GetMapping("/v1/teams/stats")
+    public List<TeamStatsDto> teamStats() {
+        return teamRepository.searchStats();
+    }
+}
@@ -0,0 +1,24 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+@Data
+public class MemberBulkLoadResult {
+
+    private long rows;
+    private int createdTeams; //이름으로 찾지 못해서 새로 만든 팀 수
+    private Duration elapsed;
+
+    public MemberBulkLoadResult(long rows, int createdTeams, Duration elapsed) {
+        this.rows = rows;
+        this.createdTeams = createdTeams;
+        this.elapsed = elapsed;
+    }
+
+    public double getRowsPerSecond() {
+        long millis = elapsed.toMillis();
+        return millis == 0 ? rows * 1000d : rows * 1000d / millis;
+    }
+}
@@ -0,0 +1,25 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+@Data
+public class MemberImportResult {
+
+    private boolean completed;
+    private boolean badInput;  //파일 내용 문제로 실패 (고쳐서 다시 보내야 한다)
+    private long importedRows; //이번 요청에서 커밋된 건수
+    private long resumeFrom;   //실패 시 다음 요청의 skip 값 (파일 앞에서부터 커밋이 끝난 데이터 줄 수)
+    private long elapsedMillis;
+    private double rowsPerSecond;
+    private String error;
+
+    public MemberImportResult(boolean completed, boolean badInput, long importedRows, long resumeFrom, long elapsedMillis, String error) {
+        this.completed = completed;
+        this.badInput = badInput;
+        this.importedRows = importedRows;
+        this.resumeFrom = resumeFrom;
+        this.elapsedMillis = elapsedMillis;
+        this.rowsPerSecond = elapsedMillis == 0 ? importedRows * 1000d : importedRows * 1000d / elapsedMillis;
+        this.error = error;
+    }
+}
@@ -0,0 +1,21 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class MemberKeysetPage {
+
+    private List<MemberTeamDto> content;
+    private int size;
+    private boolean hasNext;
+    private String nextCursor; //다음 페이지 요청 시 cursor 파라미터로 그대로 넘겨준다. 마지막 페이지면 null
+
+    public MemberKeysetPage(List<MemberTeamDto> content, int size, boolean hasNext, String nextCursor) {
+        this.content = content;
+        this.size = size;
+        this.hasNext = hasNext;
+        this.nextCursor = nextCursor;
+    }
+}
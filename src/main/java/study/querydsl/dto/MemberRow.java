@@ -0,0 +1,22 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 대량 적재(MemberBulkLoader) 입력 한 줄. teamName이 없으면 팀 없는 회원으로 넣는다.
+ */
+@Data
+@NoArgsConstructor
+public class MemberRow {
+
+    private String username;
+    private int age;
+    private String teamName;
+
+    public MemberRow(String username, int age, String teamName) {
+        this.username = username;
+        this.age = age;
+        this.teamName = teamName;
+    }
+}
@@ -20,4 +20,12 @@ public class MemberTeamDto {
         this.teamId = teamId;
         this.teamName = teamName;
     }
+
+    /**
+     * team 조인 없이 member.team.id(FK)까지만 조회할 때 사용. teamName은 TeamNameDictionary로 채운다.
+     */
+    @QueryProjection
+    public MemberTeamDto(Long memberId, String username, int age, Long teamId) {
+        this(memberId, username, age, teamId, null);
+    }
 }
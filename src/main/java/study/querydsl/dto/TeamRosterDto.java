@@ -0,0 +1,20 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class TeamRosterDto {
+
+    private Long teamId;
+    private String teamName;
+    private List<MemberTeamDto> members = new ArrayList<>();
+    private boolean membersTruncated; //회원이 더 있지만 membersPerTeam에서 잘렸다.
+
+    public TeamRosterDto(Long teamId, String teamName) {
+        this.teamId = teamId;
+        this.teamName = teamName;
+    }
+}
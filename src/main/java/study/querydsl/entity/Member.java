@@ -2,14 +2,23 @@ package study.querydsl.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
 @Getter @Setter //운영에서는 엔터티에 Setter를 사용하지 말아야함.
 @NoArgsConstructor(access = AccessLevel.PROTECTED) //protected 기본생성자를 만들어줌 (JPA를 사용하려면 기본생성자가 필요하다.)
 @ToString(of = {"id", "username", "age"}) //team과 같이 연관관계는 ToString에 넣으면 무한루프에 빠지기 때문에 넣으면 안된다.
+@Table(indexes = {
+        @Index(name = "idx_member_age_id", columnList = "age, member_id"), //나이 조건 + id 페이징을 인덱스만으로 처리 (covering index)
+        @Index(name = "idx_member_username", columnList = "username")
+})
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "member") //id 조회(findById) 용
+@SequenceGenerator(name = "member_seq_generator", sequenceName = "member_seq", allocationSize = 1000) //대량 적재 시 시퀀스 조회를 1000건에 한 번만 (pooled-lo)
 public class Member {
 
-    @Id @GeneratedValue
+    @Id @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq_generator")
     @Column(name = "member_id")
     private Long id;
     private String username;
@@ -22,10 +31,7 @@ public class Member {
     public Member(String username, int age, Team team) {
         this.username = username;
         this.age = age;
-        if (team != null) {
-            changeTeam(team);
-        }
-        this.team = team;
+        changeTeam(team);
     }
 
     public Member(String username, int age) {
@@ -36,8 +42,24 @@ public class Member {
         this(username, 0, null);
     }
 
+    /**
+     * 연관관계 편의 메소드. 주인은 member.team 이고 team.members는 메모리상 일관성을 위해서만 맞춰준다.
+     *
+     * team.members를 건드리다가 회원 50만 명짜리 컬렉션을 통째로 로딩하면 안 된다.
+     *  - 새 팀(아직 영속 전)이나 이미 초기화된 컬렉션: 그대로 add/remove (추가 SQL 없음)
+     *  - 초기화 안 된 컬렉션에 add: 하이버네이트가 초기화하지 않고 큐에 쌓아둔다. (mappedBy 쪽 bag)
+     *  - 초기화 안 된 컬렉션에서 remove: 건너뛴다. remove는 컬렉션을 초기화하기 때문이다. 나중에 로딩되면 DB 기준으로 채워진다.
+     *  - 팀이 초기화 안 된 프록시: 건너뛴다. getMembers()를 부르는 순간 팀 select가 나간다.
+     * 그래서 같은 트랜잭션에서 팀을 바꾼 뒤 (flush 전에) 프록시였던 팀의 members를 처음 읽으면 이번 변경이 빠져있을 수 있다. 필요하면 em.flush() 후에 읽는다.
+     */
     public void changeTeam(Team team) {
+        Team oldTeam = this.team;
         this.team = team;
-        team.getMembers().add(this);
+        if (oldTeam != null && oldTeam != team && Hibernate.isInitialized(oldTeam) && Hibernate.isInitialized(oldTeam.getMembers())) {
+            oldTeam.getMembers().remove(this);
+        }
+        if (team != null && oldTeam != team && Hibernate.isInitialized(team)) {
+            team.getMembers().add(this);
+        }
     }
 }
@@ -5,6 +5,9 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
 import jakarta.persistence.OneToMany;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -13,6 +16,7 @@ import java.util.List;
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "name"})
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "team") //거의 바뀌지 않는 기준 데이터. member.team 프록시 초기화도 2차 캐시에서 꺼낸다.
 public class Team {
 
     @Id @GeneratedValue
@@ -20,6 +24,7 @@ public class Team {
     private String name;
 
     @OneToMany(mappedBy = "team")
+    @BatchSize(size = 100) //팀 여러 개의 members를 건드리면 팀마다 select 하지 않고 team_id in (최대 100개)로 한 번에 초기화한다.
     List<Member> members = new ArrayList<>();
 
     public Team(String name) {
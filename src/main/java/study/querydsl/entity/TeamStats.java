@@ -0,0 +1,42 @@
+package study.querydsl.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.Immutable;
+
+/**
+ * 팀별 회원 통계 (읽기 모델)
+ *
+ * member가 바뀔 때마다 TeamStatsMaintainer가 같은 트랜잭션 안에서 증분으로 갱신한다. JPA로는 읽기만 한다. (@Immutable)
+ * avg는 ageSum / memberCount 로 계산한다.
+ */
+@Entity
+@Immutable
+@Table(name = "team_stats")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class TeamStats {
+
+    @Id
+    @Column(name = "team_id")
+    private Long teamId;
+
+    @Column(name = "member_count", nullable = false)
+    private long memberCount;
+
+    @Column(name = "age_sum", nullable = false)
+    private long ageSum;
+
+    @Column(name = "min_age")
+    private Integer minAge; //회원이 없으면 null
+
+    @Column(name = "max_age")
+    private Integer maxAge;
+}
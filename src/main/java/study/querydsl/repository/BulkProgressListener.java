@@ -0,0 +1,21 @@
+package study.querydsl.repository;
+
+/**
+ * 청크 단위 벌크 연산(MemberRepositoryCustom.bulk*) 진행 상황
+ */
+@FunctionalInterface
+public interface BulkProgressListener {
+
+    BulkProgressListener NONE = (chunkRows, totalRows, lastId, maxId) -> {
+    };
+
+    /**
+     * 청크 하나가 커밋될 때마다 호출된다.
+     *
+     * @param chunkRows 이번 청크에서 바뀐 건수
+     * @param totalRows 지금까지 바뀐 누적 건수
+     * @param lastId    이번 청크의 마지막 id (여기까지 처리됨)
+     * @param maxId     처리할 마지막 id (시작 시점 기준)
+     */
+    void onChunk(long chunkRows, long totalRows, long lastId, long maxId);
+}
@@ -0,0 +1,15 @@
+package study.querydsl.repository;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 클라이언트가 보낸 keyset 커서를 해석할 수 없을 때 (조작된 값, 다른 정렬 기준으로 발급된 커서 등)
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidCursorException extends IllegalArgumentException {
+
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,15 @@
+package study.querydsl.repository;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 페이지 크기가 1 ~ 최대값 밖일 때 (keyset 페이지 크기, 팀 roster의 팀당 회원 수)
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidPageSizeException extends IllegalArgumentException {
+
+    public InvalidPageSizeException(String message) {
+        super(message);
+    }
+}
@@ -3,10 +3,12 @@ package study.querydsl.repository;
 import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
@@ -23,21 +25,28 @@ import static study.querydsl.entity.QTeam.team;
 
 /**
  * 섹션5 실무 활용 - 순수 JPA와 QueryDsl
+ *
+ * 스프링 데이터 JPA(SimpleJpaRepository)처럼 기본은 읽기 전용 트랜잭션, 쓰기 메소드만 @Transactional.
+ * 라우팅이 켜져 있으면 조회는 복제본에서 읽는다. (DataSourceRoutingConfig)
  */
 @Repository
+@Transactional(readOnly = true)
 public class MemberJpaRepository {
 
     private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final MemberSearchQueryTemplates queryTemplates;
 
-    public MemberJpaRepository(EntityManager em, JPAQueryFactory queryFactory) {
+    public MemberJpaRepository(EntityManager em, JPAQueryFactory queryFactory, MemberSearchQueryTemplates queryTemplates) {
         this.em = em;
+        this.queryTemplates = queryTemplates;
         //this.queryFactory = new JPAQueryFactory(em);
         this.queryFactory = queryFactory; //QuerydslApplication에서 SpringBean으로 등록했기 때문에 그냥 파라미터으로 인젝션 받으면 된다.
         //이렇게 파라미터로 인젝션 받으면 생성자 패턴이 @RequiredArgsConstructor로 매칭되기 때문에 이 생성자를 생략할 수 있다. (주석 설명때메 지금은 생략안함)
     }
 
     //순수JPA
+    @Transactional
     public void save(Member member) {
         em.persist(member);
     }
@@ -142,6 +151,16 @@ public class MemberJpaRepository {
                 )
                 .fetch();
     }
+
+    /**
+     * search()와 같은 결과를 미리 만들어둔 JPQL 템플릿으로 조회한다.
+     * QueryDSL은 호출마다 표현식 트리 생성 + JPQL 직렬화를 다시 하는데, 조건 조합(16가지)별 JPQL을 한 번만 만들어두고 파라미터만 바인딩한다.
+     * MemberRepositoryImpl의 search, searchPageComplex* 도 같은 템플릿을 사용한다.
+     */
+    public List<MemberTeamDto> searchByTemplate(MemberSearchCondition condition) {
+        return queryTemplates.fetchContent(em, condition);
+    }
+
     //Predicate 리턴보다 BooleanExpression로 리턴하는게 더 낫다. BooleanExpression는 compsite가 가능하기 때문.
     private BooleanExpression usernameEq(String username) {
         return StringUtils.hasText(username) ? member.username.eq(username) : null;
@@ -165,9 +184,15 @@ public class MemberJpaRepository {
      * List<MemberTeamDto>로 리턴했지만 예시로 List<Member> 엔터티로 리턴해야하는 요구사항이 있다고 가정한다면.. 아래와 같이 그냥 Where문은 고대로 코드 재사용하면 된다.
      */
     public List<Member> searchMember(MemberSearchCondition condition) {
-        return queryFactory
-                .selectFrom(member)
-                .leftJoin(member.team, team)
+        JPAQuery<Member> query = queryFactory
+                .selectFrom(member);
+
+        //select 절에 team 컬럼이 없으니 teamName 조건이 없으면 join 자체가 필요없다. (ManyToOne join은 row 수를 바꾸지 않는다.)
+        if (StringUtils.hasText(condition.getTeamName())) {
+            query.join(member.team, team);
+        }
+
+        return query
                 .where(usernameEq(condition.getUsername()),
                         testNameEq(condition.getTeamName()),
                         ageGoe(condition.getAgeGoe()),
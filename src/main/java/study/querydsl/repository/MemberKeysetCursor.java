@@ -0,0 +1,68 @@
+package study.querydsl.repository;
+
+import lombok.Getter;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Keyset(seek) 페이징 커서
+ *
+ * 마지막으로 내려준 row의 (정렬 키, member.id)를 담는다.
+ * 클라이언트에는 Base64로 인코딩한 불투명(opaque) 문자열로만 내려주고, 다음 요청에서 그대로 돌려받는다.
+ * offset처럼 앞 페이지의 row를 전부 읽고 버리는 게 아니라 where (정렬키, id) > (커서) 조건으로 인덱스를 바로 탄다.
+ */
+@Getter
+public class MemberKeysetCursor {
+
+    public enum Sort {
+        ID,  //member.id asc
+        AGE  //member.age asc, member.id asc
+    }
+
+    private static final String DELIMITER = ":";
+
+    private final Sort sort;
+    private final Integer age; //sort == AGE 일 때만 사용
+    private final Long memberId;
+
+    public MemberKeysetCursor(Sort sort, Integer age, Long memberId) {
+        this.sort = sort;
+        this.age = age;
+        this.memberId = memberId;
+    }
+
+    public String encode() {
+        String raw = sort.name() + DELIMITER + memberId + DELIMITER + (age == null ? "" : age);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 커서가 없으면(첫 페이지) null을 리턴한다.
+     */
+    public static MemberKeysetCursor decode(String token, Sort expectedSort) {
+        if (!StringUtils.hasText(token)) {
+            return null;
+        }
+        MemberKeysetCursor cursor;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(DELIMITER, -1);
+            cursor = new MemberKeysetCursor(
+                    Sort.valueOf(parts[0]),
+                    parts[2].isEmpty() ? null : Integer.valueOf(parts[2]),
+                    Long.valueOf(parts[1]));
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) { //Base64, enum, 숫자 파싱 실패 모두 여기로
+            throw new InvalidCursorException("malformed cursor: " + token);
+        }
+
+        if (cursor.sort != expectedSort) { //정렬 기준이 바뀌면 커서의 위치도 의미가 없어진다.
+            throw new InvalidCursorException("cursor was issued for sort=" + cursor.sort + ", not " + expectedSort);
+        }
+        if (cursor.sort == Sort.AGE && cursor.age == null) {
+            throw new InvalidCursorException("cursor has no age value");
+        }
+        return cursor;
+    }
+}
@@ -1,12 +1,20 @@
 package study.querydsl.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import study.querydsl.entity.Member;
 
 import java.util.List;
 
 public interface MemberRepository extends JpaRepository<Member, Long>, MemberRepositoryCustom { //인터페이스는 여러개 상속 받을 수 있다.
 
+    //쿼리 캐시: 결과 id 목록만 캐시하고 엔티티는 member 영역에서 꺼낸다. member 테이블이 바뀌면 하이버네이트가 알아서 무효화한다.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "memberByUsername")
+    })
     List<Member> findByUsername(String username);
 
 }
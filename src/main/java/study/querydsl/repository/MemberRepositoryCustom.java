@@ -2,10 +2,14 @@ package study.querydsl.repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import study.querydsl.dto.MemberKeysetPage;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public interface MemberRepositoryCustom {
 
@@ -13,4 +17,17 @@ public interface MemberRepositoryCustom {
     Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable);
     Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable);
     Page<MemberTeamDto> searchPageComplexWithUtils(MemberSearchCondition condition, Pageable pageable);
+    Page<MemberTeamDto> searchPageDeferredJoin(MemberSearchCondition condition, Pageable pageable);
+    Page<MemberTeamDto> searchPageParallel(MemberSearchCondition condition, Pageable pageable);
+    CompletableFuture<Page<MemberTeamDto>> searchPageComplexAsync(MemberSearchCondition condition, Pageable pageable);
+    CompletableFuture<Page<MemberTeamDto>> searchPageComplexWithUtilsAsync(MemberSearchCondition condition, Pageable pageable);
+    CompletableFuture<Page<MemberTeamDto>> searchPageDeferredJoinAsync(MemberSearchCondition condition, Pageable pageable);
+    long searchStream(MemberSearchCondition condition, Consumer<MemberTeamDto> consumer);
+    Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Pageable pageable);
+    MemberKeysetPage searchKeyset(MemberSearchCondition condition, String cursor, MemberKeysetCursor.Sort sort, int size);
+
+    //조건에 맞는 회원을 id 범위 청크로 나눠서 청크마다 별도 트랜잭션으로 변경한다. 리턴은 바뀐 전체 건수 (트랜잭션 밖에서만 호출)
+    long bulkAddAge(MemberSearchCondition condition, int amount, BulkProgressListener listener);
+    long bulkChangeTeam(MemberSearchCondition condition, Long teamId, BulkProgressListener listener);
+    long bulkDelete(MemberSearchCondition condition, BulkProgressListener listener);
 }
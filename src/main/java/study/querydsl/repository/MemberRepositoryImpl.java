@@ -1,60 +1,99 @@
 package study.querydsl.repository;
 
 import com.querydsl.core.QueryResults;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberKeysetPage;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.entity.Team;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
 
+/**
+ * search, searchPage* 결과는 memberSearch 캐시에 올라간다. (키: MemberSearchKeyGenerator, 무효화: MemberSearchCacheEvictor)
+ * slice, keyset, stream 처럼 매번 위치가 바뀌는 조회는 캐시하지 않는다.
+ *
+ * 검색 메소드는 @Transactional(readOnly = true)라서 라우팅이 켜져 있으면 복제본에서 읽는다. (DataSourceRoutingConfig)
+ * 쓰기 트랜잭션 안에서 부르면 그 트랜잭션에 참여하므로 primary에서 읽는다. searchPageParallel은 ReadOnlyQueryExecutor가 복제본으로 보낸다.
+ */
+@Slf4j
 @RequiredArgsConstructor
 public class MemberRepositoryImpl implements  MemberRepositoryCustom {
 
+    private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final ReadOnlyQueryExecutor readOnlyQueryExecutor;
+    private final MemberSearchQueryTemplates queryTemplates;
+    private final TeamNameDictionary teamNameDictionary;
+    private final PlatformTransactionManager transactionManager;
+    private final TeamStatsMaintainer teamStatsMaintainer;
+    private final MemberSearchAsyncExecutor asyncExecutor;
+    private final ObjectProvider<MemberRepository> memberRepository; //캐시, 트랜잭션이 적용된 프록시로 부르기 위해 (자기 자신)
+
+    @Value("${member.search.stream.fetch-size:500}")
+    private int streamFetchSize;
+
+    @Value("${member.bulk.chunk-size:10000}")
+    private int bulkChunkSize;
+
+    @Value("${spring.data.web.pageable.max-page-size:2000}") //Pageable을 받는 API와 같은 상한
+    private int maxPageSize;
 
     @Override
+    @Transactional(readOnly = true)
+    @MemberSearchCacheable
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
-        /**
-         * 감탄이 나올 수 밖에 없다.
-         * 이리 깔끔한지.. where문만 보면 이게 각각 동적쿼리가 어느 조건인지 한 눈에 파악이 가능하다. SQL과 거의 비슷한 느낌으로 어떤 쿼리가 나갈지 머리속에 한방에 그려진다.
-         * 김영한은 Builder 보다 이와 같이 Where절 파라미터를 기본으로 사용하라고 권장함. 물론 builder를 쓸 때도 있긴하다.
-         */
-        return queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")
-                ))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(usernameEq(condition.getUsername()),
-                        testNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
-                .fetch();
+        //where 절 모양(shape)별로 미리 만들어둔 JPQL에 파라미터만 바인딩한다. -> MemberSearchQueryTemplates 참고
+        //같은 쿼리를 QueryDSL where절 파라미터로 짠 버전은 MemberJpaRepository.search()
+        return queryTemplates.fetchContent(em, condition);
     }
     //Predicate 리턴보다 BooleanExpression로 리턴하는게 더 낫다. BooleanExpression는 compsite가 가능하기 때문.
     private BooleanExpression usernameEq(String username) {
         return StringUtils.hasText(username) ? member.username.eq(username) : null;
     }
 
+    //team.name = ? 대신 TeamNameDictionary로 이름을 id로 바꿔서 member.team_id 컬럼만 본다. (team 조인 불필요)
     private BooleanExpression testNameEq(String teamName) {
-        return StringUtils.hasText(teamName) ? team.name.eq(teamName) : null;
+        return StringUtils.hasText(teamName) ? member.team.id.in(teamNameDictionary.idsOf(teamName)) : null;
     }
 
     private BooleanExpression ageGoe(Integer ageGoe) {
@@ -66,6 +105,8 @@ public class MemberRepositoryImpl implements  MemberRepositoryCustom {
     }
 
     @Override
+    @Transactional(readOnly = true)
+    @MemberSearchCacheable
     public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
         QueryResults<MemberTeamDto> results = queryFactory
                 .select(new QMemberTeamDto(
@@ -99,39 +140,15 @@ public class MemberRepositoryImpl implements  MemberRepositoryCustom {
     }
 
     @Override
+    @Transactional(readOnly = true)
+    @MemberSearchCacheable
     public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
-        List<MemberTeamDto> contents = queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")
-                ))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(usernameEq(condition.getUsername()),
-                        testNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
-                .offset(pageable.getOffset())
-                .limit(pageable.getPageSize())
-                .fetch();
+        List<MemberTeamDto> contents = queryTemplates.fetchContent(em, condition, pageable.getOffset(), pageable.getPageSize());
 
 
         //count query를 최적화할 수 있는 방법을 모색해서 직접 카운트 쿼리를 작성한다.
         //데이터가 별로없으면 그냥 시간들이지 말고 fetchResults사용하고 몇 천만 건 있으면 count 쿼리를 최적화하면 성능 향상 도움에 크다. ex. 카운트쿼리를 먼저구한다음에 만약에 0이면 컨텐츠 쿼리를 실행하지 않는다던가..등등도 도움이 된다.
-        Long total = queryFactory
-                .select(member.id.count())
-                .from(member)
-                .leftJoin(member.team, team) //count 쿼리를 만드는데 join할 필요가 있을까? 상황에 따라서는 조인이 없어도 정확히 count를 계산할 수 있다.
-                .where(usernameEq(condition.getUsername()),
-                        testNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
-                .fetchFirst();
+        Long total = queryTemplates.count(em, condition).getSingleResult(); //count 쿼리를 만드는데 join할 필요가 있을까? -> countQuery() 참고
 
         return new PageImpl<>(contents, pageable, total);
     }
@@ -150,41 +167,375 @@ public class MemberRepositoryImpl implements  MemberRepositoryCustom {
      */
 
     @Override
+    @Transactional(readOnly = true)
+    @MemberSearchCacheable
     public Page<MemberTeamDto> searchPageComplexWithUtils(MemberSearchCondition condition, Pageable pageable) {
-        List<MemberTeamDto> contents = queryFactory // content 메소드는 동일하다.
+        List<MemberTeamDto> contents = queryTemplates.fetchContent(em, condition, pageable.getOffset(), pageable.getPageSize()); // content 메소드는 동일하다.
+
+
+        TypedQuery<Long> countQuery = queryTemplates.count(em, condition);//fetch제거 (getSingleResult()를 하지 않으면 쿼리가 실행되지 않는다.)
+
+        return PageableExecutionUtils.getPage(contents, pageable, countQuery::getSingleResult); //() -> countQuery.getSingleResult() -------> countQuery::getSingleResult
+        /* PageableExecutionUtils.getPage()를 사용하여 리턴한다.
+            첫번째, 두번쨰 파라미터는 동일하지만 여기서 중요한건 3번쨰 파라미터이다.
+            getPage()가 count 쿼리(3번째 파라미터)를 호출하여 카운터를 가져오기도 하지만 1,2번 파라미터를 참조하여 조건에 따라서 count fetch(count query)를 실행하지 않도록 처리해준다.
+         */
+    }
+
+    /**
+     * content 쿼리와 count 쿼리 동시 실행
+     *
+     * searchPageComplex는 content 쿼리 -> count 쿼리를 순서대로 실행해서 응답 시간이 두 쿼리의 합이다.
+     * 여기서는 두 쿼리를 각각 다른 스레드, 다른 읽기 전용 영속성 컨텍스트(다른 커넥션)에서 동시에 실행해서 둘 중 긴 쪽만큼만 걸린다.
+     *
+     * count가 필요한지는 PageableExecutionUtils가 판단한다. content가 충분히 짧아서 count가 필요없으면 supplier가 호출되지 않고,
+     * 그 경우 아직 돌고 있는 count 쿼리는 취소한다.
+     * 대신 커넥션을 두 개 쓰고, 현재 트랜잭션에서 커밋 전에 쓴 데이터는 보이지 않는다.
+     */
+    @Override
+    @MemberSearchCacheable
+    public Page<MemberTeamDto> searchPageParallel(MemberSearchCondition condition, Pageable pageable) {
+        List<Future<?>> started = new ArrayList<>(2);
+        try {
+            Future<List<MemberTeamDto>> contentFuture = readOnlyQueryExecutor.submit(factory -> contentQuery(factory, condition)
+                    .orderBy(member.id.asc()) //호출마다 페이지가 겹치지 않도록
+                    .offset(pageable.getOffset())
+                    .limit(pageable.getPageSize())
+                    .fetch());
+            started.add(contentFuture);
+            Future<Long> countFuture = readOnlyQueryExecutor.submit(factory -> countQuery(factory, condition).fetchFirst()); //거절되면 content 쿼리도 취소
+            started.add(countFuture);
+
+            long deadline = System.nanoTime() + readOnlyQueryExecutor.getTimeout().toNanos();
+            List<MemberTeamDto> contents = teamNameDictionary.fillTeamNames(readOnlyQueryExecutor.await(contentFuture, deadline));
+            return PageableExecutionUtils.getPage(contents, pageable, () -> readOnlyQueryExecutor.await(countFuture, deadline));
+        } finally {
+            started.forEach(future -> future.cancel(true)); //이미 끝났으면 아무 일도 일어나지 않는다. 실행 중이면 DB 쿼리까지 취소
+        }
+    }
+
+    /**
+     * 비동기 검색 - MemberSearchAsyncExecutor 스레드에서 동기 버전을 그대로 부른다. (캐시, 읽기 전용 트랜잭션, 복제본 라우팅 모두 동일)
+     * 호출한 스레드의 트랜잭션에는 참여하지 않는다. 큐가 꽉 차면 바로 MemberSearchBusyException
+     */
+    @Override
+    public CompletableFuture<Page<MemberTeamDto>> searchPageComplexAsync(MemberSearchCondition condition, Pageable pageable) {
+        return asyncExecutor.submit(() -> memberRepository.getObject().searchPageComplex(condition, pageable));
+    }
+
+    @Override
+    public CompletableFuture<Page<MemberTeamDto>> searchPageComplexWithUtilsAsync(MemberSearchCondition condition, Pageable pageable) {
+        return asyncExecutor.submit(() -> memberRepository.getObject().searchPageComplexWithUtils(condition, pageable));
+    }
+
+    @Override
+    public CompletableFuture<Page<MemberTeamDto>> searchPageDeferredJoinAsync(MemberSearchCondition condition, Pageable pageable) {
+        return asyncExecutor.submit(() -> memberRepository.getObject().searchPageDeferredJoin(condition, pageable));
+    }
+
+    /**
+     * team 조인 없이 member.team.id(FK 컬럼)까지만 조회한다. teamName은 결과를 받은 뒤 TeamNameDictionary로 채워야 한다.
+     */
+    private JPAQuery<MemberTeamDto> contentQuery(JPAQueryFactory queryFactory, MemberSearchCondition condition) {
+        return queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username,
                         member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")
+                        member.team.id.as("teamId")
                 ))
                 .from(member)
-                .leftJoin(member.team, team)
+                .where(usernameEq(condition.getUsername()),
+                        testNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())
+                );
+    }
+
+    /**
+     * 스트리밍 조회
+     *
+     * fetch()는 결과 전체를 List로 만든 다음에 리턴하기 때문에 조건 없이 조회하면 테이블 크기만큼 힙을 쓴다.
+     * stream()은 하이버네이트 ScrollableResults(forward-only 커서)로 fetch-size 만큼씩 DB에서 가져오면서 한 건씩 consumer에 넘긴다.
+     * 메모리 사용량이 결과 건수와 무관하게 일정하다.
+     *
+     * 커서가 열려있는 동안 커넥션을 계속 쥐고 있어야 하므로 반드시 트랜잭션 안에서 호출해야 한다.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public long searchStream(MemberSearchCondition condition, Consumer<MemberTeamDto> consumer) {
+        long count = 0;
+        try (Stream<MemberTeamDto> rows = contentQuery(queryFactory, condition)
+                .orderBy(member.id.asc())
+                .setHint(HibernateHints.HINT_FETCH_SIZE, streamFetchSize) //JDBC fetch size, H2/MySQL 등 드라이버마다 동작이 다를 수 있다.
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .stream()) {
+            Iterator<MemberTeamDto> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                MemberTeamDto row = iterator.next();
+                teamNameDictionary.fillTeamName(row);
+                consumer.accept(row);
+                if (++count % streamFetchSize == 0) {
+                    em.clear(); //DTO 조회라 관리되는 엔티티는 없지만, 혹시 모를 영속성 컨텍스트 누적을 주기적으로 비운다.
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Slice - count 쿼리 없는 페이징
+     *
+     * 무한 스크롤처럼 totalElements를 안 쓰는 화면은 count 쿼리 자체가 낭비다.
+     * 페이지 사이즈보다 1건 더(limit + 1) 조회해서 1건이 더 있으면 다음 페이지가 있다고 판단하고, 그 1건은 버린다.
+     * 요청당 쿼리 1번으로 끝난다. (스프링 데이터 JPA의 Slice 리턴 타입과 같은 방식)
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Pageable pageable) {
+        List<MemberTeamDto> contents = contentQuery(queryFactory, condition)
+                .orderBy(member.id.asc()) //정렬이 없으면 다음 slice와 행이 겹치거나 빠질 수 있다.
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize() + 1)
+                .fetch();
+
+        boolean hasNext = contents.size() > pageable.getPageSize();
+        if (hasNext) {
+            contents.remove(pageable.getPageSize());
+        }
+
+        return new SliceImpl<>(teamNameDictionary.fillTeamNames(contents), pageable, hasNext);
+    }
+
+    /**
+     * Deferred join (late row lookup) 페이징
+     *
+     * offset 10만이면 DB는 10만 row를 읽고 버린다. 이때 team 조인 + 전체 컬럼을 들고 건너뛰면 버리는 row도 그만큼 무겁다.
+     * 그래서 1) 필터 컬럼과 member.id만으로 offset/limit을 먼저 처리하고 (인덱스만 보고 끝낼 수 있다 - covering index)
+     *      2) 살아남은 id(페이지 사이즈 만큼)에 대해서만 DTO 조회를 한다. (teamName은 TeamNameDictionary로 채운다)
+     * 깊은 페이지일수록 효과가 크다. 첫 페이지 근처에서는 쿼리가 하나 늘어나는 만큼 오히려 손해일 수 있다.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    @MemberSearchCacheable
+    public Page<MemberTeamDto> searchPageDeferredJoin(MemberSearchCondition condition, Pageable pageable) {
+        List<Long> ids = queryFactory
+                .select(member.id)
+                .from(member)
                 .where(usernameEq(condition.getUsername()),
                         testNameEq(condition.getTeamName()),
                         ageGoe(condition.getAgeGoe()),
                         ageLoe(condition.getAgeLoe())
                 )
+                .orderBy(member.id.asc()) //두 쿼리의 순서를 맞추기 위해 id로 정렬
                 .offset(pageable.getOffset())
                 .limit(pageable.getPageSize())
                 .fetch();
 
+        List<MemberTeamDto> contents = ids.isEmpty() ? new ArrayList<>() : queryFactory
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        member.team.id.as("teamId")
+                ))
+                .from(member)
+                .where(member.id.in(ids))
+                .orderBy(member.id.asc())
+                .fetch();
+
+        return PageableExecutionUtils.getPage(teamNameDictionary.fillTeamNames(contents), pageable, countQuery(condition)::fetchFirst);
+    }
 
-        JPAQuery<Long> countQuery = queryFactory
+    /**
+     * count 쿼리 join 최적화
+     *
+     * member -> team 은 ManyToOne 이라서 left join을 해도 member row 수는 절대 늘어나거나 줄어들지 않는다.
+     * 즉, team 컬럼으로 거르는 조건(teamName)이 없으면 join은 count 결과를 바꿀 수 없으니 빼버린다. (수천만 건이면 count 시간이 절반이 된다.)
+     * teamName 조건도 TeamNameDictionary가 member.team_id 조건으로 바꿔주기 때문에 결국 count에는 join이 전혀 필요없다.
+     */
+    private JPAQuery<Long> countQuery(MemberSearchCondition condition) {
+        return countQuery(queryFactory, condition);
+    }
+
+    private JPAQuery<Long> countQuery(JPAQueryFactory queryFactory, MemberSearchCondition condition) {
+        return queryFactory
                 .select(member.id.count())
                 .from(member)
-                .leftJoin(member.team, team)
                 .where(usernameEq(condition.getUsername()),
                         testNameEq(condition.getTeamName()),
                         ageGoe(condition.getAgeGoe()),
                         ageLoe(condition.getAgeLoe())
-                );//fetch제거 (fetch를 하지 않으면 쿼리가 실행되지 않는다.) 뒤에서 따로 countQuery.fetch(); //따로 분리하여 이걸 입력해야 실행된다는 말이다.
+                );
+    }
 
-        return PageableExecutionUtils.getPage(contents, pageable, countQuery::fetchFirst); //() -> countQuery.fetchFirst() -------> countQuery::fetchFirst
-        /* PageableExecutionUtils.getPage()를 사용하여 리턴한다.
-            첫번째, 두번쨰 파라미터는 동일하지만 여기서 중요한건 3번쨰 파라미터이다.
-            getPage()가 count 쿼리(3번째 파라미터)를 호출하여 카운터를 가져오기도 하지만 1,2번 파라미터를 참조하여 조건에 따라서 count fetch(count query)를 실행하지 않도록 처리해준다.
-         */
+    /**
+     * Keyset(seek) 페이징
+     *
+     * offset 페이징은 offset 만큼의 row를 읽고 버리기 때문에 뒤 페이지로 갈수록 느려진다. (5000 페이지면 앞의 row를 전부 스캔)
+     * 대신 마지막으로 본 row의 (정렬키, id)를 커서로 받아서 where (정렬키, id) > (커서) 로 바로 시작 위치를 찾는다.
+     * 몇 번째 페이지든 latency가 일정하다. 대신 임의의 페이지로 점프하거나 전체 count를 알 수는 없다.
+     *
+     * size + 1 건을 조회해서 다음 페이지가 있는지 판단한다. (count 쿼리 없음)
+     * size는 1 ~ spring.data.web.pageable.max-page-size, 벗어나면 InvalidPageSizeException(400)
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public MemberKeysetPage searchKeyset(MemberSearchCondition condition, String cursor, MemberKeysetCursor.Sort sort, int size) {
+        if (size < 1 || size > maxPageSize) {
+            throw new InvalidPageSizeException("size must be between 1 and " + maxPageSize + ": " + size);
+        }
+        MemberKeysetCursor after = MemberKeysetCursor.decode(cursor, sort);
+
+        List<MemberTeamDto> rows = queryFactory
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        member.team.id.as("teamId")
+                ))
+                .from(member)
+                .where(usernameEq(condition.getUsername()),
+                        testNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe()),
+                        keysetAfter(after)
+                )
+                .orderBy(keysetOrder(sort))
+                .limit(size + 1)
+                .fetch();
+
+        boolean hasNext = rows.size() > size;
+        List<MemberTeamDto> content = hasNext ? new ArrayList<>(rows.subList(0, size)) : rows;
+        String nextCursor = hasNext ? nextCursor(sort, content.get(content.size() - 1)).encode() : null;
+
+        return new MemberKeysetPage(teamNameDictionary.fillTeamNames(content), size, hasNext, nextCursor);
+    }
+
+    private BooleanExpression keysetAfter(MemberKeysetCursor after) {
+        if (after == null) {
+            return null; //첫 페이지
+        }
+        if (after.getSort() == MemberKeysetCursor.Sort.AGE) {
+            //(age, id) > (:age, :id) 를 풀어쓴 것. row value 비교를 지원하지 않는 DB도 있어서 이렇게 쓴다.
+            return member.age.gt(after.getAge())
+                    .or(member.age.eq(after.getAge()).and(member.id.gt(after.getMemberId())));
+        }
+        return member.id.gt(after.getMemberId());
+    }
+
+    private OrderSpecifier<?>[] keysetOrder(MemberKeysetCursor.Sort sort) {
+        if (sort == MemberKeysetCursor.Sort.AGE) {
+            return new OrderSpecifier<?>[]{member.age.asc(), member.id.asc()}; //id를 tie-breaker로 붙여야 순서가 유일해진다.
+        }
+        return new OrderSpecifier<?>[]{member.id.asc()};
+    }
+
+    private MemberKeysetCursor nextCursor(MemberKeysetCursor.Sort sort, MemberTeamDto last) {
+        Integer age = sort == MemberKeysetCursor.Sort.AGE ? last.getAge() : null;
+        return new MemberKeysetCursor(sort, age, last.getMemberId());
+    }
+
+    /**
+     * 청크 단위 벌크 연산
+     *
+     * queryFactory.update(member)...execute() 한 방이면 조건에 맞는 row 전체를 한 트랜잭션에서 잠그고, 끝날 때까지 다른 쓰기가 다 기다린다. (QuerydslBasicTest.bulkUpdate 참고)
+     * 그래서 시작 시점의 min(id) ~ max(id)를 member.bulk.chunk-size 크기의 id 범위로 잘라서 범위마다 트랜잭션을 따로 커밋한다.
+     *  - 한 번에 잠그는 row가 청크 크기로 제한되고, 청크 사이에 다른 트랜잭션이 끼어들 수 있다.
+     *  - 중간에 실패해도 앞 청크는 커밋되어 있다. (listener의 lastId로 어디까지 됐는지 알 수 있다)
+     *  - 시작 후에 새로 들어온 회원(max(id)보다 큰 id)은 대상이 아니다.
+     *
+     * 무효화: memberSearch 캐시는 DataChangeTracker가 update/delete 문을 보고 비운다. 2차 캐시는 하이버네이트가 벌크 연산 시 member 영역을 비운다.
+     * team_stats: 벌크 연산은 엔티티 이벤트가 없으므로 청크마다 영향받은 팀(바뀌기 전 팀 + 새 팀)을 다시 계산한다.
+     * 이미 트랜잭션 안에서 호출하면 청크가 그 트랜잭션에 참여해서 청크 커밋이 없어지므로 IllegalTransactionStateException
+     * (REQUIRES_NEW로 바깥 트랜잭션을 잠시 멈추면 바깥 트랜잭션이 잠근 row를 기다리다 멈출 수 있고, 바깥의 미커밋 변경도 보이지 않는다)
+     * OSIV처럼 영속성 컨텍스트가 청크 트랜잭션보다 오래 살 수 있으므로 청크마다 clear 해서 바뀌기 전 엔티티가 남지 않게 한다.
+     */
+    @Override
+    public long bulkAddAge(MemberSearchCondition condition, int amount, BulkProgressListener listener) {
+        return bulkUpdate(condition, listener, update -> update.set(member.age, member.age.add(amount)));
+    }
+
+    @Override
+    public long bulkChangeTeam(MemberSearchCondition condition, Long teamId, BulkProgressListener listener) {
+        //team은 프록시(id)만 있으면 된다. 청크 트랜잭션 안에서 꺼낸다.
+        return inIdChunks(condition, listener, teamId, (where, from, to) -> queryFactory
+                .update(member)
+                .set(member.team, teamId == null ? null : em.getReference(Team.class, teamId))
+                .where(where, member.id.between(from, to))
+                .execute());
+    }
+
+    @Override
+    public long bulkDelete(MemberSearchCondition condition, BulkProgressListener listener) {
+        return inIdChunks(condition, listener, null, (where, from, to) -> queryFactory
+                .delete(member)
+                .where(where, member.id.between(from, to))
+                .execute());
+    }
+
+    private long bulkUpdate(MemberSearchCondition condition, BulkProgressListener listener, Function<JPAUpdateClause, JPAUpdateClause> changes) {
+        return inIdChunks(condition, listener, null, (where, from, to) -> changes.apply(queryFactory.update(member))
+                .where(where, member.id.between(from, to))
+                .execute());
+    }
+
+    /**
+     * @param newTeamId 변경 후 회원이 속하게 되는 팀 (team_stats 재계산 대상, 없으면 null)
+     */
+    private long inIdChunks(MemberSearchCondition condition, BulkProgressListener listener, Long newTeamId, IdRangeWork work) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalTransactionStateException("bulk operations commit per chunk. call them outside of a transaction");
+        }
+
+        //teamName -> team id 변환도 시작할 때 한 번만 한다. (모든 청크가 같은 조건)
+        Predicate where = ExpressionUtils.allOf(
+                usernameEq(condition.getUsername()),
+                testNameEq(condition.getTeamName()),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe()));
+
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Tuple range = tx.execute(status -> queryFactory
+                .select(member.id.min(), member.id.max())
+                .from(member)
+                .where(where)
+                .fetchOne());
+        Long minId = range == null ? null : range.get(member.id.min());
+        Long maxId = range == null ? null : range.get(member.id.max());
+        if (minId == null) {
+            return 0;
+        }
+
+        long total = 0;
+        for (long chunkStart = minId; chunkStart <= maxId; chunkStart += bulkChunkSize) {
+            long from = chunkStart;
+            long to = Math.min(chunkStart + bulkChunkSize - 1, maxId);
+            long affected = tx.execute(status -> {
+                Set<Long> teamIds = new HashSet<>(queryFactory
+                        .select(member.team.id).distinct()
+                        .from(member)
+                        .where(where, member.id.between(from, to), member.team.isNotNull())
+                        .fetch());
+                long rows = work.execute(where, from, to);
+                if (rows > 0) {
+                    if (newTeamId != null) {
+                        teamIds.add(newTeamId);
+                    }
+                    teamStatsMaintainer.recompute(em, teamIds); //이벤트로 모인 변화량을 먼저 반영하고 다시 계산한다.
+                }
+                em.clear();
+                return rows;
+            });
+            total += affected;
+            listener.onChunk(affected, total, to, maxId);
+        }
+        log.info("member bulk operation finished. rows={}, ids={}~{}, chunkSize={}", total, minId, maxId, bulkChunkSize);
+        return total;
+    }
+
+    @FunctionalInterface
+    private interface IdRangeWork {
+        long execute(Predicate where, long fromId, long toId);
     }
 }
@@ -0,0 +1,121 @@
+package study.querydsl.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionTimedOutException;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.support.SqlStatementCounter;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * 비동기 검색(MemberRepositoryCustom.search*Async) 전용 executor
+ *
+ * 서블릿 스레드는 CompletableFuture만 돌려주고 바로 반납된다. 느린 쿼리가 몰려도 /hello 같은 가벼운 요청은 서블릿 스레드를 받을 수 있다.
+ * - 스레드 수 = 커넥션 풀 크기. 더 많아도 커넥션을 기다릴 뿐이다.
+ * - 큐 크기가 정해져 있고, 꽉 차면 기다리지 않고 바로 MemberSearchBusyException(503)
+ * - 제출 시점부터 member.search.async.timeout 안에 끝나야 한다. 지나면 TimeoutException으로 끝나고 큐에 있던 작업은 빠진다.
+ *   작업은 남은 시간을 타임아웃으로 가진 읽기 전용 트랜잭션에서 돌기 때문에 쿼리도 DB 쪽에서 그 시간에 끊긴다. (jakarta.persistence.query.timeout)
+ * - 돌려준 future를 cancel하면(클라이언트가 끊긴 경우 등) 작업도 취소된다.
+ * - 스레드 수, 큐 길이, 거절 수는 executor.* 메트릭(name=member.search.async)
+ */
+@Slf4j
+@Component
+public class MemberSearchAsyncExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final TransactionTemplate readOnlyTx;
+    private final int threads;
+    private final int queueCapacity;
+    private final Duration timeout;
+
+    public MemberSearchAsyncExecutor(@Value("${member.search.async.threads:${spring.datasource.hikari.maximum-pool-size:10}}") int threads,
+                                     @Value("${member.search.async.queue-capacity:50}") int queueCapacity,
+                                     @Value("${member.search.async.timeout:3s}") Duration timeout,
+                                     PlatformTransactionManager transactionManager,
+                                     MeterRegistry meterRegistry) {
+        this.threads = threads;
+        this.queueCapacity = queueCapacity;
+        this.timeout = timeout;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), ReadOnlyQueryExecutor.platformThreadFactory("member-search-async-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        ExecutorServiceMetrics.monitor(meterRegistry, executor, "member.search.async", Collections.emptyList());
+        log.info("member search async executor: threads={}, queue={}, timeout={}", threads, queueCapacity, timeout);
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> work) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> task;
+        try {
+            task = executor.submit(SqlStatementCounter.propagate(() -> { //요청의 SQL 통계에 포함
+                long remaining = deadline - System.nanoTime();
+                if (result.isDone() || remaining <= 0) {
+                    return; //큐에서 기다리는 동안 타임아웃/취소
+                }
+                try {
+                    result.complete(inTransaction(work, remaining));
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            }));
+        } catch (RejectedExecutionException e) {
+            throw new MemberSearchBusyException(threads, queueCapacity);
+        }
+
+        result.orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS).whenComplete((value, e) -> {
+            if (e != null) {
+                task.cancel(true); //큐에 있으면 빠지고, 실행 중이면 인터럽트 (쿼리는 트랜잭션 타임아웃으로 끊긴다)
+            }
+        });
+        return result;
+    }
+
+    private <T> T inTransaction(Supplier<T> work, long remainingNanos) {
+        TransactionTemplate tx = new TransactionTemplate(readOnlyTx.getTransactionManager(), readOnlyTx);
+        tx.setTimeout((int) Math.max(1, TimeUnit.NANOSECONDS.toSeconds(remainingNanos + TimeUnit.SECONDS.toNanos(1) - 1))); //초 단위, 올림
+        return tx.execute(status -> work.get());
+    }
+
+    /**
+     * 타임아웃으로 끝났는지. future의 orTimeout, 쿼리 타임아웃, 트랜잭션 타임아웃 중 먼저 걸린 쪽 (CompletionException으로 감싸져 있어도)
+     */
+    public static boolean isTimeout(Throwable e) {
+        Throwable cause = e;
+        while (cause != null) {
+            if (cause instanceof TimeoutException || cause instanceof QueryTimeoutException
+                    || cause instanceof jakarta.persistence.QueryTimeoutException || cause instanceof TransactionTimedOutException) {
+                return true;
+            }
+            cause = cause.getCause();
+        }
+        return false;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,15 @@
+package study.querydsl.repository;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 검색 executor의 큐가 꽉 찼을 때 (MemberSearchAsyncExecutor, ReadOnlyQueryExecutor). 기다리지 않고 바로 503
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class MemberSearchBusyException extends RuntimeException {
+
+    public MemberSearchBusyException(int threads, int queueCapacity) {
+        super("member search is busy (threads " + threads + ", queue " + queueCapacity + " full)");
+    }
+}
@@ -0,0 +1,42 @@
+package study.querydsl.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import study.querydsl.support.DataChangeListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * member, team 테이블이 바뀌면 회원 검색 결과 캐시를 통째로 비운다.
+ *
+ * 어떤 조건의 결과가 바뀌었는지 정확히 계산하는 것보다 전부 비우는 게 훨씬 싸고 안전하다.
+ * (조건 조합이 적고 반복 조회가 많은 트래픽을 위한 캐시라 쓰기가 드물다는 전제)
+ * 비울 때마다 세대(generation)를 올린다. 비우기 전에 시작한 검색의 put은 MemberSearchCacheResolver가 버린다.
+ */
+@Component
+@RequiredArgsConstructor
+public class MemberSearchCacheEvictor implements DataChangeListener {
+
+    public static final String CACHE_NAME = "memberSearch";
+
+    private final CacheManager cacheManager;
+    private final AtomicLong generation = new AtomicLong();
+
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    @Override
+    public void onDataChange(String table) {
+        if (!"member".equals(table) && !"team".equals(table)) {
+            return;
+        }
+        generation.incrementAndGet(); //비우기 전에 올려야 그 사이의 put도 버려진다.
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+}
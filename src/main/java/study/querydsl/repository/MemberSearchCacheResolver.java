@@ -0,0 +1,107 @@
+package study.querydsl.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.CacheOperationInvocationContext;
+import org.springframework.cache.interceptor.CacheResolver;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * memberSearch 캐시를 세대(generation) 검사로 감싸서 돌려준다.
+ *
+ * 무효화(MemberSearchCacheEvictor)는 커밋 후에 일어나는데, 그 전에 시작한 검색이 무효화 뒤에 옛 결과를 put 할 수 있다.
+ * 그러면 TTL(60s) 동안 옛 결과가 나가고, ETag(DataVersionETag)는 새 버전이라 클라이언트도 그대로 들고 있는다.
+ * 그래서 조회(miss) 시점의 세대를 기억해뒀다가 put 할 때 세대가 바뀌었으면 넣지 않는다.
+ * (@Cacheable은 같은 스레드에서 get -> 메소드 실행 -> put 순서로 부른다)
+ */
+@Component(MemberSearchCacheResolver.BEAN_NAME)
+@RequiredArgsConstructor
+public class MemberSearchCacheResolver implements CacheResolver {
+
+    public static final String BEAN_NAME = "memberSearchCacheResolver";
+
+    private final CacheManager cacheManager;
+    private final MemberSearchCacheEvictor cacheEvictor;
+
+    private volatile Cache cache;
+
+    @Override
+    public Collection<? extends Cache> resolveCaches(CacheOperationInvocationContext<?> context) {
+        Cache current = cache;
+        if (current == null) {
+            current = new GenerationCheckedCache(cacheManager.getCache(MemberSearchCacheEvictor.CACHE_NAME), cacheEvictor);
+            cache = current; //여러 번 만들어져도 같은 캐시를 감쌀 뿐이다.
+        }
+        return List.of(current);
+    }
+
+    private static class GenerationCheckedCache implements Cache {
+
+        private final Cache delegate;
+        private final MemberSearchCacheEvictor cacheEvictor;
+        private final ThreadLocal<Miss> lastMiss = new ThreadLocal<>(); //이 스레드에서 마지막으로 놓친 키와 그때의 세대
+
+        private GenerationCheckedCache(Cache delegate, MemberSearchCacheEvictor cacheEvictor) {
+            this.delegate = delegate;
+            this.cacheEvictor = cacheEvictor;
+        }
+
+        @Override
+        public String getName() {
+            return delegate.getName();
+        }
+
+        @Override
+        public Object getNativeCache() {
+            return delegate.getNativeCache();
+        }
+
+        @Override
+        public ValueWrapper get(Object key) {
+            long generation = cacheEvictor.getGeneration(); //조회보다 먼저 읽는다.
+            ValueWrapper value = delegate.get(key);
+            if (value == null) {
+                lastMiss.set(new Miss(key, generation));
+            }
+            return value;
+        }
+
+        @Override
+        public <T> T get(Object key, Class<T> type) {
+            return delegate.get(key, type);
+        }
+
+        @Override
+        public <T> T get(Object key, Callable<T> valueLoader) {
+            return delegate.get(key, valueLoader);
+        }
+
+        @Override
+        public void put(Object key, Object value) {
+            Miss miss = lastMiss.get();
+            lastMiss.remove();
+            if (miss == null || !miss.key.equals(key) || miss.generation != cacheEvictor.getGeneration()) {
+                return; //조회 이후 데이터가 바뀌었다(또는 언제 읽었는지 모른다). 옛 결과일 수 있으니 넣지 않는다.
+            }
+            delegate.put(key, value);
+        }
+
+        @Override
+        public void evict(Object key) {
+            delegate.evict(key);
+        }
+
+        @Override
+        public void clear() {
+            delegate.clear();
+        }
+
+        private record Miss(Object key, long generation) {
+        }
+    }
+}
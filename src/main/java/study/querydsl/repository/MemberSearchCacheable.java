@@ -0,0 +1,22 @@
+package study.querydsl.repository;
+
+import org.springframework.cache.annotation.Cacheable;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 회원 검색 결과 캐시 (memberSearch)
+ *
+ * 현재 트랜잭션에서 이미 데이터를 변경했다면 캐시를 아예 타지 않는다.
+ * 커밋 전 데이터로 만든 결과를 공유 캐시에 넣으면 다른 요청이 커밋되지 않은(롤백될 수도 있는) 데이터를 보게 되기 때문이다.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Cacheable(cacheResolver = MemberSearchCacheResolver.BEAN_NAME, //memberSearch 캐시 + 무효화 전에 시작한 검색의 put 버리기
+        keyGenerator = MemberSearchKeyGenerator.BEAN_NAME,
+        condition = "!@dataChangeTracker.hasPendingChanges()")
+public @interface MemberSearchCacheable {
+}
@@ -0,0 +1,45 @@
+package study.querydsl.repository;
+
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 회원 검색 결과 캐시 키
+ *
+ * MemberSearchCondition은 @Data라 equals/hashCode가 있지만 그대로 키로 쓰면 username=""과 username=null이 다른 키가 된다.
+ * 실제 쿼리에서는 StringUtils.hasText()로 둘 다 조건 없음으로 처리하므로 키도 똑같이 정규화한다.
+ * 메소드마다 결과 타입(List, Page)이 다르므로 메소드 이름도 키에 넣는다.
+ */
+@Component(MemberSearchKeyGenerator.BEAN_NAME)
+public class MemberSearchKeyGenerator implements KeyGenerator {
+
+    public static final String BEAN_NAME = "memberSearchKeyGenerator";
+
+    @Override
+    public Object generate(Object target, Method method, Object... params) {
+        List<Object> key = new ArrayList<>();
+        key.add(method.getName());
+        for (Object param : params) {
+            if (param instanceof MemberSearchCondition condition) {
+                key.add(textOrNull(condition.getUsername()));
+                key.add(textOrNull(condition.getTeamName()));
+                key.add(condition.getAgeGoe());
+                key.add(condition.getAgeLoe());
+            } else {
+                key.add(param); //Pageable(PageRequest)은 equals/hashCode가 구현되어 있다.
+            }
+        }
+        return new SimpleKey(key.toArray());
+    }
+
+    private static String textOrNull(String value) {
+        return StringUtils.hasText(value) ? value : null;
+    }
+}
@@ -0,0 +1,130 @@
+package study.querydsl.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import java.util.List;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+/**
+ * 회원 검색 쿼리 템플릿
+ *
+ * QueryDSL은 호출할 때마다 표현식 트리를 새로 만들고 JPQL 문자열로 직렬화한다.
+ * 그런데 MemberSearchCondition은 조건이 4개(username, teamName, ageGoe, ageLoe)뿐이라 where 절 모양은 2^4 = 16가지가 전부다.
+ * 그래서 16가지 JPQL을 애플리케이션 시작 시 한 번만 만들어두고, 요청마다 모양(shape)을 골라 파라미터만 바인딩한다.
+ * JPQL 문자열이 항상 같으므로 하이버네이트도 쿼리 플랜 캐시에서 바로 꺼내 쓴다. (다시 파싱하지 않는다)
+ *
+ * shape 비트: 1=username, 2=teamName, 4=ageGoe, 8=ageLoe
+ *
+ * team은 조인하지 않는다. teamName 조건은 TeamNameDictionary로 team id로 바꿔서 member.team_id로 거르고,
+ * 결과의 teamName도 조회 후 TeamNameDictionary로 채운다. -> content() 대신 fetchContent()를 쓰면 채워진 결과를 돌려준다.
+ */
+@Component
+public class MemberSearchQueryTemplates {
+
+    static final int USERNAME = 1;
+    static final int TEAM_NAME = 1 << 1;
+    static final int AGE_GOE = 1 << 2;
+    static final int AGE_LOE = 1 << 3;
+    static final int SHAPE_COUNT = 1 << 4;
+
+    private final String[] contentJpql = new String[SHAPE_COUNT];
+    private final String[] countJpql = new String[SHAPE_COUNT];
+
+    private final TeamNameDictionary teamNameDictionary;
+
+    public MemberSearchQueryTemplates(TeamNameDictionary teamNameDictionary) {
+        this.teamNameDictionary = teamNameDictionary;
+        for (int shape = 0; shape < SHAPE_COUNT; shape++) {
+            String where = where(shape);
+            //m.team.id는 member.team_id 컬럼이라 조인이 생기지 않는다.
+            //order by가 없으면 offset 페이지마다 순서가 DB 마음대로라서 행이 겹치거나 빠진다. deferred join(id 순)과 같은 페이지가 나오도록 id로 정렬
+            contentJpql[shape] = "select new study.querydsl.dto.MemberTeamDto(m.id, m.username, m.age, m.team.id)" +
+                    " from Member m" + where + " order by m.id";
+            countJpql[shape] = "select count(m.id) from Member m" + where;
+        }
+    }
+
+    /**
+     * teamName이 비어있는 쿼리를 돌려준다. 결과를 직접 받는다면 TeamNameDictionary.fillTeamNames()를 거쳐야 한다.
+     */
+    public TypedQuery<MemberTeamDto> content(EntityManager em, MemberSearchCondition condition) {
+        int shape = shapeOf(condition);
+        return bind(em.createQuery(contentJpql[shape], MemberTeamDto.class), shape, condition);
+    }
+
+    public List<MemberTeamDto> fetchContent(EntityManager em, MemberSearchCondition condition) {
+        return teamNameDictionary.fillTeamNames(content(em, condition).getResultList());
+    }
+
+    public List<MemberTeamDto> fetchContent(EntityManager em, MemberSearchCondition condition, long offset, int limit) {
+        if (offset > Integer.MAX_VALUE) {
+            throw new PageOffsetTooLargeException(offset); //(int)로 자르면 음수나 엉뚱한 페이지가 된다.
+        }
+        List<MemberTeamDto> contents = content(em, condition)
+                .setFirstResult((int) offset)
+                .setMaxResults(limit)
+                .getResultList();
+        return teamNameDictionary.fillTeamNames(contents);
+    }
+
+    public TypedQuery<Long> count(EntityManager em, MemberSearchCondition condition) {
+        int shape = shapeOf(condition);
+        return bind(em.createQuery(countJpql[shape], Long.class), shape, condition);
+    }
+
+    String contentJpql(int shape) {
+        return contentJpql[shape];
+    }
+
+    static int shapeOf(MemberSearchCondition condition) {
+        int shape = 0;
+        if (StringUtils.hasText(condition.getUsername())) {
+            shape |= USERNAME;
+        }
+        if (StringUtils.hasText(condition.getTeamName())) {
+            shape |= TEAM_NAME;
+        }
+        if (condition.getAgeGoe() != null) {
+            shape |= AGE_GOE;
+        }
+        if (condition.getAgeLoe() != null) {
+            shape |= AGE_LOE;
+        }
+        return shape;
+    }
+
+    private static String where(int shape) {
+        StringBuilder where = new StringBuilder();
+        appendIf(where, shape, USERNAME, "m.username = :username");
+        appendIf(where, shape, TEAM_NAME, "m.team.id in :teamIds");
+        appendIf(where, shape, AGE_GOE, "m.age >= :ageGoe");
+        appendIf(where, shape, AGE_LOE, "m.age <= :ageLoe");
+        return where.toString();
+    }
+
+    private static void appendIf(StringBuilder where, int shape, int bit, String predicate) {
+        if ((shape & bit) == 0) {
+            return;
+        }
+        where.append(where.length() == 0 ? " where " : " and ").append(predicate);
+    }
+
+    private <T> TypedQuery<T> bind(TypedQuery<T> query, int shape, MemberSearchCondition condition) {
+        if ((shape & USERNAME) != 0) {
+            query.setParameter("username", condition.getUsername());
+        }
+        if ((shape & TEAM_NAME) != 0) {
+            query.setParameter("teamIds", teamNameDictionary.idsOf(condition.getTeamName()));
+        }
+        if ((shape & AGE_GOE) != 0) {
+            query.setParameter("ageGoe", condition.getAgeGoe());
+        }
+        if ((shape & AGE_LOE) != 0) {
+            query.setParameter("ageLoe", condition.getAgeLoe());
+        }
+        return query;
+    }
+}
@@ -0,0 +1,15 @@
+package study.querydsl.repository;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 페이지 offset(page * size)이 JPA setFirstResult(int) 범위를 넘을 때
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class PageOffsetTooLargeException extends IllegalArgumentException {
+
+    public PageOffsetTooLargeException(long offset) {
+        super("page offset too large: " + offset);
+    }
+}
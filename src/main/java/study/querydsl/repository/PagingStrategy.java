@@ -0,0 +1,17 @@
+package study.querydsl.repository;
+
+/**
+ * offset 페이징 방식 선택
+ */
+public enum PagingStrategy {
+
+    /**
+     * 조인 + 전체 컬럼을 그대로 offset/limit (searchPageComplexWithUtils)
+     */
+    OFFSET,
+
+    /**
+     * member.id만 먼저 offset/limit으로 구한 뒤, 그 id들에 대해서만 team 조인 + DTO 조회 (searchPageDeferredJoin)
+     */
+    DEFERRED_JOIN
+}
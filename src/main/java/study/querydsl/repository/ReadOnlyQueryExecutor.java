@@ -0,0 +1,158 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+import study.querydsl.config.DataSourceRouting;
+import study.querydsl.config.VirtualThreads;
+import study.querydsl.support.SqlStatementCounter;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * 조회 쿼리를 별도의 스레드 + 별도의 읽기 전용 영속성 컨텍스트(= 별도의 커넥션)에서 실행한다.
+ *
+ * 하나의 EntityManager는 스레드 안전하지 않아서 content 쿼리와 count 쿼리를 동시에 날릴 수 없다.
+ * 그래서 쿼리마다 EntityManagerFactory에서 새 EntityManager를 만들고, 끝나면 바로 닫는다.
+ * 스프링 트랜잭션과는 무관하게 동작하므로 아직 커밋되지 않은 데이터는 보이지 않는다. (조회 전용으로만 사용할 것)
+ *
+ * 라우팅이 켜져 있으면 복제본에서 읽는다. (DataSourceRouting.onReplica)
+ *
+ * 스레드 수와 큐 크기가 정해져 있어서 커넥션 풀을 다 잡아먹지 않는다. 큐가 꽉 차면 MemberSearchBusyException(503).
+ *
+ * submit()이 돌려준 Future를 cancel하면 스레드 인터럽트만으로는 실행 중인 JDBC 쿼리가 멈추지 않으므로
+ * 세션의 cancelQuery()(Statement.cancel)로 DB 쪽 쿼리도 취소해서 커넥션을 바로 돌려받는다.
+ */
+@Slf4j
+@Component
+public class ReadOnlyQueryExecutor {
+
+    private final EntityManagerFactory emf;
+    private final ThreadPoolExecutor executor;
+    private final Duration timeout;
+    private final int queueCapacity;
+
+    public ReadOnlyQueryExecutor(EntityManagerFactory emf,
+                                 @Value("${member.search.parallel.threads:8}") int threads,
+                                 @Value("${member.search.parallel.queue-capacity:100}") int queueCapacity,
+                                 @Value("${member.search.parallel.timeout:3s}") Duration timeout,
+                                 @Value("${member.search.parallel.virtual-threads:true}") boolean virtualThreads) {
+        this.emf = emf;
+        this.timeout = timeout;
+        this.queueCapacity = queueCapacity;
+
+        ThreadFactory threadFactory = virtualThreads
+                ? VirtualThreads.factory("member-search-").orElseGet(() -> platformThreadFactory("member-search-"))
+                : platformThreadFactory("member-search-");
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+        log.info("member search executor: threads={}, queue={}, virtual={}", threads, queueCapacity,
+                virtualThreads && VirtualThreads.isSupported());
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public <T> Future<T> submit(Function<JPAQueryFactory, T> work) {
+        AtomicReference<Session> running = new AtomicReference<>();
+        FutureTask<T> task = new FutureTask<>(SqlStatementCounter.propagate(() -> { //요청의 SQL 통계에 포함
+            EntityManager em = emf.createEntityManager();
+            try {
+                Session session = em.unwrap(Session.class);
+                session.setDefaultReadOnly(true); //스냅샷을 만들지 않는다.
+                session.setHibernateFlushMode(FlushMode.MANUAL); //조회 전용이라 flush할 일이 없다.
+                em.setProperty("jakarta.persistence.query.timeout", timeout.toMillis()); //DB 쪽에서도 끊기도록
+                running.set(session);
+                return DataSourceRouting.onReplica(() -> work.apply(new JPAQueryFactory(em)));
+            } finally {
+                running.set(null);
+                em.close();
+            }
+        })) {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                boolean cancelled = super.cancel(mayInterruptIfRunning);
+                if (cancelled) {
+                    cancelQuery(running.get());
+                }
+                return cancelled;
+            }
+        };
+
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            throw new MemberSearchBusyException(executor.getMaximumPoolSize(), queueCapacity);
+        }
+        return task;
+    }
+
+    private static void cancelQuery(Session session) {
+        if (session == null) {
+            return; //아직 시작 전(큐에서 빠지면서 실행되지 않는다)이거나 이미 끝났다.
+        }
+        try {
+            session.cancelQuery();
+        } catch (RuntimeException e) {
+            log.debug("failed to cancel running member search query", e); //이미 끝났거나 드라이버가 취소를 지원하지 않는다. 쿼리 타임아웃이 끊는다.
+        }
+    }
+
+    /**
+     * deadline(System.nanoTime 기준)까지 결과를 기다린다. 시간이 지나면 작업을 취소하고 QueryTimeoutException.
+     */
+    public <T> T await(Future<T> future, long deadlineNanos) {
+        try {
+            return future.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new QueryTimeoutException("member search did not finish within " + timeout);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for member search", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    static ThreadFactory platformThreadFactory(String namePrefix) {
+        AtomicInteger sequence = new AtomicInteger();
+        ThreadFactory delegate = Executors.defaultThreadFactory();
+        return runnable -> {
+            Thread thread = delegate.newThread(runnable);
+            thread.setName(namePrefix + sequence.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,181 @@
+package study.querydsl.repository;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.support.DataChangeListener;
+import study.querydsl.support.DataChangeTracker;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 팀 이름 <-> 팀 id 사전 (메모리)
+ *
+ * 팀 이름 조건(teamName)을 team.name = ? 로 걸면 매번 team 조인이 필요하다.
+ * 팀은 거의 바뀌지 않으니 이름 -> id를 메모리에 들고 있다가 member.team.id in (?) 조건으로 바꿔서 조인 없이 member 테이블만 본다.
+ * 반대로 조회 결과의 teamName도 조인 대신 id -> 이름으로 채운다.
+ *
+ * - 애플리케이션 시작 시 한 번 로딩하고, team 테이블이 바뀌면(DataChangeTracker) 다음 조회 때 다시 로딩한다.
+ * - 다른 서버나 SQL로 직접 바뀐 팀은 DataChangeTracker가 모른다. 그래서 refresh-interval이 지난 스냅샷도 다시 로딩한다.
+ *   그 사이에 다른 곳에서 추가된 팀 이름으로 검색하면 최대 refresh-interval 동안 빈 결과가 나온다.
+ * - 스냅샷은 불변 객체를 통째로 바꿔치기하므로 읽기는 락 없이 동시에 가능하다.
+ *   로딩도 락 없이 하고 compareAndSet으로 교체한다. (DB를 기다리는 동안 다른 스레드를 막거나 가상 스레드를 캐리어에 고정하지 않는다)
+ * - 팀 이름은 unique가 아니므로 이름 하나에 id가 여러 개일 수 있다.
+ * - 현재 트랜잭션에서 team을 변경했다면 공유 스냅샷을 쓰지 않고 DB에서 바로 읽는다. (커밋 전 변경을 공유 스냅샷에 섞지 않기 위해)
+ * - 없는 이름이라고 해서 DB를 다시 읽지는 않는다. (현재 트랜잭션에서 flush 안 된 팀이 있을 때만)
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TeamNameDictionary implements DataChangeListener {
+
+    /**
+     * 존재하지 않는 팀 이름으로 검색할 때 쓰는 id. 시퀀스 id는 항상 양수라서 아무것도 매칭되지 않는다.
+     */
+    public static final Long NO_TEAM_ID = -1L;
+
+    private final EntityManager em;
+    private final DataChangeTracker dataChangeTracker;
+
+    @Value("${member.team-name.refresh-interval:60s}")
+    private Duration refreshInterval;
+
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+    private final AtomicLong changes = new AtomicLong(); //team 변경 횟수. 스냅샷이 로딩 시작 시점의 값을 들고 있다가 다르면 다시 로딩
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        Snapshot loaded = current();
+        log.info("team name dictionary loaded. teams={}", loaded.nameById.size());
+    }
+
+    @Override
+    public void onDataChange(String table) {
+        if ("team".equals(table)) {
+            changes.incrementAndGet();
+        }
+    }
+
+    /**
+     * 이름에 해당하는 팀 id 목록. 없는 이름이면 [NO_TEAM_ID]
+     */
+    public List<Long> idsOf(String teamName) {
+        List<Long> ids = current().idsByName.get(teamName);
+        if (ids == null && flushUnflushedTeams()) {
+            ids = load(-1).idsByName.get(teamName);
+        }
+        return ids == null ? List.of(NO_TEAM_ID) : ids;
+    }
+
+    /**
+     * 같은 트랜잭션에서 persist만 하고 아직 flush 안 된 팀이 있을 수 있다. flush 해보고 team insert가 나갔으면 true
+     *
+     * 없는 이름으로 검색할 때마다 팀 전체를 다시 읽으면 (검색은 모두 읽기 전용 트랜잭션이라) 요청 하나로 team 테이블 전체를 읽게 만들 수 있다.
+     * 그래서 이 트랜잭션에 아직 반영 안 된 변경이 있을 때만 다시 읽는다.
+     */
+    private boolean flushUnflushedTeams() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive() || dataChangeTracker.hasPendingChanges("team")) {
+            return false; //이미 변경이 있었다면 current()가 DB에서 새로 읽은 결과다.
+        }
+        if (!em.unwrap(SessionImplementor.class).getActionQueue().hasAnyQueuedActions()) {
+            return false;
+        }
+        em.flush(); //이어서 나갈 검색 쿼리의 auto flush를 조금 앞당기는 것뿐이다.
+        return dataChangeTracker.hasPendingChanges("team");
+    }
+
+    public String nameOf(Long teamId) {
+        return nameOf(current(), teamId);
+    }
+
+    public void fillTeamName(MemberTeamDto dto) {
+        dto.setTeamName(nameOf(dto.getTeamId()));
+    }
+
+    public <C extends Collection<MemberTeamDto>> C fillTeamNames(C dtos) {
+        Snapshot current = current(); //건마다 스냅샷을 확인하지 않도록 한 번만 꺼낸다.
+        for (MemberTeamDto dto : dtos) {
+            dto.setTeamName(nameOf(current, dto.getTeamId()));
+        }
+        return dtos;
+    }
+
+    private String nameOf(Snapshot current, Long teamId) {
+        if (teamId == null) {
+            return null;
+        }
+        String name = current.nameById.get(teamId);
+        if (name == null && !current.nameById.containsKey(teamId)) {
+            changes.incrementAndGet(); //하이버네이트를 거치지 않고 들어온 팀일 수 있으니 한 번 다시 읽어본다.
+            name = current().nameById.get(teamId);
+        }
+        return name;
+    }
+
+    private Snapshot current() {
+        if (dataChangeTracker.hasPendingChanges("team")) {
+            return load(-1);
+        }
+
+        Snapshot current = snapshot.get();
+        long version = changes.get();
+        if (current != null && current.version == version && System.nanoTime() - current.loadedAt < refreshInterval.toNanos()) {
+            return current;
+        }
+        //여러 스레드가 동시에 로딩할 수 있지만 팀 목록은 작고, 로딩하는 동안 아무도 기다리지 않는다.
+        Snapshot loaded = load(version); //로딩 중에 또 변경되면 version이 달라져서 다음 조회 때 또 로딩된다.
+        if (dataChangeTracker.hasPendingChanges("team")) {
+            //로딩 쿼리의 auto flush로 이 트랜잭션의 미커밋 변경이 섞였다. 공유하지 않고 이번 조회에만 쓴다.
+            return loaded;
+        }
+        snapshot.compareAndSet(current, loaded); //그 사이 다른 스레드가 먼저 바꿨으면 그쪽을 둔다.
+        return loaded;
+    }
+
+    private Snapshot load(long version) {
+        long loadedAt = System.nanoTime();
+        List<Object[]> rows = em.createQuery("select t.id, t.name from Team t order by t.id", Object[].class)
+                .getResultList();
+
+        Map<Long, String> nameById = new HashMap<>();
+        Map<String, List<Long>> idsByName = new HashMap<>();
+        for (Object[] row : rows) {
+            Long id = (Long) row[0];
+            String name = (String) row[1];
+            nameById.put(id, name);
+            if (name != null) {
+                idsByName.computeIfAbsent(name, key -> new ArrayList<>()).add(id);
+            }
+        }
+        idsByName.replaceAll((name, ids) -> List.copyOf(ids));
+        return new Snapshot(nameById, idsByName, version, loadedAt);
+    }
+
+    private static class Snapshot {
+        private final Map<Long, String> nameById;
+        private final Map<String, List<Long>> idsByName;
+        private final long version;
+        private final long loadedAt; //System.nanoTime()
+
+        private Snapshot(Map<Long, String> nameById, Map<String, List<Long>> idsByName, long version, long loadedAt) {
+            this.nameById = nameById;
+            this.idsByName = idsByName;
+            this.version = version;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package study.querydsl.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import study.querydsl.dto.TeamRosterDto;
+import study.querydsl.dto.TeamStatsDto;
+
+import java.util.List;
+
+public interface TeamRepositoryCustom {
+
+    //팀 페이지 + 팀마다 회원 membersPerTeam 명까지 (넘치면 TeamRosterDto.membersTruncated)
+    Page<TeamRosterDto> searchRoster(Pageable pageable, int membersPerTeam);
+    List<TeamStatsDto> searchStats();
+}
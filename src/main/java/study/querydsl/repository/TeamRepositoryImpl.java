@@ -0,0 +1,115 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QTeamStatsDto;
+import study.querydsl.dto.TeamRosterDto;
+import study.querydsl.dto.TeamStatsDto;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.entity.QTeamStats.teamStats;
+
+@RequiredArgsConstructor
+public class TeamRepositoryImpl implements TeamRepositoryCustom {
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final TeamStatsMaintainer teamStatsMaintainer;
+
+    private static final String ROSTER_MEMBERS_SQL = "select member_id, username, age, team_id from (" +
+            " select m.member_id, m.username, m.age, m.team_id, row_number() over (partition by m.team_id order by m.member_id) as rn" +
+            " from member m where m.team_id in (:teamIds)" +
+            ") ranked where rn <= :limit order by team_id, member_id";
+
+    /**
+     * 팀 목록 + 소속 회원
+     *
+     * team 페이지를 조회하고 팀마다 team.getMembers()를 부르면 팀 수만큼 쿼리가 나간다. (N+1)
+     * 그렇다고 team -> members 를 페치 조인하면 row가 회원 수만큼 늘어나서 DB에서 페이징을 할 수 없다. (하이버네이트가 전체를 메모리에 올려서 자른다)
+     * 그래서
+     *  1) 팀만 페이징해서 조회하고
+     *  2) 그 팀들의 회원을 team_id in (...) 한 번으로 가져와서 팀별로 나눠 담는다.
+     * 페이지 크기와 상관없이 쿼리는 팀 1 + 회원 1 + (필요할 때만) count 1 이다.
+     *
+     * 회원은 팀마다 id 순으로 membersPerTeam 명까지만 담는다. 회원이 수십만인 팀이 한 페이지에 몰려도 메모리와 응답 크기가 정해져 있다.
+     * row_number() over (partition by team_id)로 DB에서 자르고(JPQL/QueryDSL로는 표현할 수 없어서 네이티브 쿼리),
+     * 한 명 더 읽어서 잘렸는지(membersTruncated)를 알려준다. 나머지는 /v5/members?teamName=.. 로 페이징하면 된다.
+     */
+    @Override
+    public Page<TeamRosterDto> searchRoster(Pageable pageable, int membersPerTeam) {
+        if (membersPerTeam < 1) {
+            throw new IllegalArgumentException("membersPerTeam must be positive: " + membersPerTeam);
+        }
+        List<Tuple> teams = queryFactory
+                .select(team.id, team.name)
+                .from(team)
+                .orderBy(team.id.asc())
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+
+        Map<Long, TeamRosterDto> rosters = new LinkedHashMap<>();
+        for (Tuple tuple : teams) {
+            Long teamId = tuple.get(team.id);
+            rosters.put(teamId, new TeamRosterDto(teamId, tuple.get(team.name)));
+        }
+
+        if (!rosters.isEmpty()) {
+            @SuppressWarnings("unchecked")
+            List<Object[]> rows = em.createNativeQuery(ROSTER_MEMBERS_SQL)
+                    .setParameter("teamIds", rosters.keySet())
+                    .setParameter("limit", membersPerTeam + 1) //한 명 더 읽어서 잘렸는지 확인
+                    .getResultList();
+
+            for (Object[] row : rows) {
+                MemberTeamDto memberDto = new MemberTeamDto(((Number) row[0]).longValue(), (String) row[1],
+                        ((Number) row[2]).intValue(), ((Number) row[3]).longValue());
+                TeamRosterDto roster = rosters.get(memberDto.getTeamId());
+                if (roster.getMembers().size() == membersPerTeam) {
+                    roster.setMembersTruncated(true);
+                    continue;
+                }
+                memberDto.setTeamName(roster.getTeamName());
+                roster.getMembers().add(memberDto);
+            }
+        }
+
+        return PageableExecutionUtils.getPage(List.copyOf(rosters.values()), pageable,
+                () -> queryFactory.select(team.count()).from(team).fetchOne());
+    }
+
+    /**
+     * 팀별 회원 수, 평균/최소/최대 나이
+     *
+     * QuerydslBasicTest.groupBy()의 member group by 집계와 결과는 같지만 member를 읽지 않는다.
+     * team_stats는 팀당 한 줄이라 팀 수만큼만 읽는다. (TeamStatsMaintainer가 회원 변경 시 갱신)
+     */
+    @Override
+    public List<TeamStatsDto> searchStats() {
+        teamStatsMaintainer.applyPending(em); //같은 트랜잭션에서 바꾼 회원도 보이도록
+
+        return queryFactory
+                .select(new QTeamStatsDto(
+                        team.id,
+                        team.name,
+                        teamStats.memberCount,
+                        teamStats.ageSum,
+                        teamStats.minAge,
+                        teamStats.maxAge
+                ))
+                .from(teamStats)
+                .join(team).on(team.id.eq(teamStats.teamId))
+                .orderBy(team.id.asc())
+                .fetch();
+    }
+}
@@ -0,0 +1,343 @@
+package study.querydsl.repository;
+
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * team_stats(TeamStats) 증분 갱신
+ *
+ * QuerydslBasicTest.groupBy 처럼 매번 member 전체를 group by 하지 않고, 회원이 바뀔 때 바뀐 만큼만 team_stats에 더하고 뺀다.
+ *
+ * - 하이버네이트 이벤트(insert/update/delete)로 Member, Team 변경을 받아서 세션(트랜잭션)별로 팀마다 변화량을 모은다.
+ * - 커밋 직전(마지막 flush 후)에 팀당 update 한 번으로 반영한다. 대량 적재(청크 1000건)도 팀 수만큼만 SQL이 나간다.
+ * - count, sum은 더하고 빼면 되지만 min/max는 뺄 수 없다. 지워진(또는 바뀐) 나이가 현재 min/max와 같으면 그 팀만 다시 계산한다.
+ * - 벌크 update/delete는 이벤트가 없으므로 MemberRepositoryImpl.bulk*가 청크마다 recompute()를 부른다. (recompute는 먼저 applyPending)
+ *   queryFactory.update(member).execute()를 직접 쓰거나 JDBC로 넣었다면 recompute()/rebuildAll()을 직접 불러야 한다.
+ * - 같은 트랜잭션 안에서 바로 읽으려면 applyPending()을 먼저 부른다. (TeamRepositoryImpl.searchStats)
+ * - 동시성: 팀 통계를 읽거나 다시 계산하기 전에 team row를 select ... for update로 잠근다. (id 순서로, 데드락 방지)
+ *   잠그지 않으면 같은 팀을 다시 계산하는 두 트랜잭션이 delete 후 insert 하다가 PK 충돌이 나거나, 한쪽의 변화량이 덮어써진다.
+ */
+@Slf4j
+@Component
+public class TeamStatsMaintainer implements Integrator, HibernatePropertiesCustomizer,
+        PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private static final String REBUILD_SQL = "insert into team_stats (team_id, member_count, age_sum, min_age, max_age)" +
+            " select t.id, count(m.member_id), coalesce(sum(m.age), 0), min(m.age), max(m.age)" +
+            " from team t left join member m on m.team_id = t.id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectProvider<PlatformTransactionManager> transactionManager; //EntityManagerFactory가 이 빈을 필요로 하므로 나중에 찾는다.
+    private final Map<SharedSessionContractImplementor, Map<Long, Delta>> pendingBySession = new ConcurrentHashMap<>();
+
+    public TeamStatsMaintainer(JdbcTemplate jdbcTemplate, ObjectProvider<PlatformTransactionManager> transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionManager = transactionManager;
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put("hibernate.integrator_provider", (IntegratorProvider) () -> List.of(this));
+    }
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext, SessionFactoryImplementor sessionFactory) {
+        EventListenerRegistry registry = sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildAll() {
+        new TransactionTemplate(transactionManager.getObject()).executeWithoutResult(status -> {
+            jdbcTemplate.update("delete from team_stats");
+            int teams = jdbcTemplate.update(REBUILD_SQL + " group by t.id");
+            log.info("team_stats rebuilt. teams={}", teams);
+        });
+    }
+
+    /**
+     * 주어진 팀들의 통계를 member 테이블 기준으로 다시 계산한다. (팀 크기만큼 읽는다)
+     * 이 EntityManager에서 flush는 됐지만 아직 반영하지 않은 변화량을 먼저 반영한다.
+     * 그렇지 않으면 재계산이 이미 그 행들을 세었는데 커밋 때 변화량이 또 더해진다. (두 번 반영)
+     */
+    public void recompute(EntityManager em, Collection<Long> teamIds) {
+        if (teamIds.isEmpty()) {
+            return;
+        }
+        applyPending(em);
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            recompute(connection, teamIds);
+            return null;
+        });
+    }
+
+    /**
+     * 이 EntityManager(트랜잭션)에서 아직 반영하지 않은 변화량을 지금 반영한다.
+     */
+    public void applyPending(EntityManager em) {
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        if (pendingBySession.containsKey(session)) {
+            em.flush(); //이벤트는 flush 때 발생하므로 먼저 flush
+            apply(session);
+        }
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member) {
+            Object[] state = event.getState();
+            delta(event.getSession(), teamIdOf(event.getPersister(), state)).add(ageOf(event.getPersister(), state));
+        } else if (event.getEntity() instanceof Team) {
+            delta(event.getSession(), (Long) event.getId()); //회원이 없는 팀도 통계 row가 생기도록
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof Member)) {
+            return;
+        }
+        EntityPersister persister = event.getPersister();
+        Long teamId = teamIdOf(persister, event.getState());
+        Object[] oldState = event.getOldState();
+        if (oldState == null) { //이전 상태를 모르면(detached update) 새 팀만 다시 계산
+            delta(event.getSession(), teamId).recompute = true;
+            return;
+        }
+
+        Long oldTeamId = teamIdOf(persister, oldState);
+        int oldAge = ageOf(persister, oldState);
+        int age = ageOf(persister, event.getState());
+        if (oldAge != age || !Objects.equals(oldTeamId, teamId)) {
+            delta(event.getSession(), oldTeamId).remove(oldAge);
+            delta(event.getSession(), teamId).add(age);
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            Object[] state = event.getDeletedState();
+            delta(event.getSession(), teamIdOf(event.getPersister(), state)).remove(ageOf(event.getPersister(), state));
+        } else if (event.getEntity() instanceof Team) {
+            delta(event.getSession(), (Long) event.getId()).deleted = true;
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private Delta delta(EventSource session, Long teamId) {
+        if (teamId == null) {
+            return new Delta(); //팀 없는 회원은 통계 대상이 아니다. (버려지는 객체)
+        }
+        Map<Long, Delta> pending = pendingBySession.computeIfAbsent(session, s -> {
+            //세션(트랜잭션)당 한 번 등록. 커밋 직전에 반영하고, 커밋/롤백 후에는 정리한다.
+            session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) this::apply);
+            session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) (success, completed) -> pendingBySession.remove(completed));
+            return new HashMap<>();
+        });
+        return pending.computeIfAbsent(teamId, id -> new Delta());
+    }
+
+    private void apply(SessionImplementor session) {
+        Map<Long, Delta> pending = pendingBySession.remove(session);
+        if (pending == null || pending.isEmpty()) {
+            return;
+        }
+        session.doWork(connection -> {
+            for (Map.Entry<Long, Delta> entry : new TreeMap<>(pending).entrySet()) { //팀 id 순서로 잠근다.
+                apply(connection, entry.getKey(), entry.getValue());
+            }
+        });
+    }
+
+    private void apply(Connection connection, Long teamId, Delta delta) throws SQLException {
+        if (delta.deleted) {
+            update(connection, "delete from team_stats where team_id = ?", teamId);
+            return;
+        }
+        lockTeams(connection, List.of(teamId)); //min/max를 읽고 판단하는 동안 다른 트랜잭션이 바꾸지 못하게
+
+        Integer currentMin = null;
+        Integer currentMax = null;
+        boolean exists = false;
+        try (PreparedStatement ps = connection.prepareStatement("select min_age, max_age from team_stats where team_id = ?")) {
+            ps.setLong(1, teamId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    exists = true;
+                    currentMin = rs.getObject(1, Integer.class);
+                    currentMax = rs.getObject(2, Integer.class);
+                }
+            }
+        }
+
+        boolean extremeRemoved = (delta.removedMin != null && (currentMin == null || delta.removedMin <= currentMin))
+                || (delta.removedMax != null && (currentMax == null || delta.removedMax >= currentMax));
+        if (!exists || delta.recompute || extremeRemoved) {
+            recompute(connection, List.of(teamId));
+            return;
+        }
+
+        if (delta.count == 0 && delta.ageSum == 0 && delta.addedMin == null) {
+            return;
+        }
+        update(connection, "update team_stats set member_count = member_count + ?, age_sum = age_sum + ?," +
+                        " min_age = case when ? is null then min_age else least(coalesce(min_age, ?), ?) end," +
+                        " max_age = case when ? is null then max_age else greatest(coalesce(max_age, ?), ?) end" +
+                        " where team_id = ?",
+                delta.count, delta.ageSum,
+                delta.addedMin, delta.addedMin, delta.addedMin,
+                delta.addedMax, delta.addedMax, delta.addedMax,
+                teamId);
+    }
+
+    private static void recompute(Connection connection, Collection<Long> teamIds) throws SQLException {
+        String in = inClause(teamIds);
+        Object[] ids = teamIds.toArray();
+        lockTeams(connection, teamIds);
+        update(connection, "delete from team_stats where team_id in " + in, ids);
+        update(connection, REBUILD_SQL + " where t.id in " + in + " group by t.id", ids);
+    }
+
+    /**
+     * 같은 팀의 team_stats를 바꾸는 트랜잭션끼리 줄을 세운다. (이미 지워진 팀은 잠글 row가 없다)
+     */
+    private static void lockTeams(Connection connection, Collection<Long> teamIds) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("select id from team where id in " + inClause(teamIds) + " order by id for update")) {
+            int i = 1;
+            for (Long teamId : teamIds) {
+                ps.setLong(i++, teamId);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    //결과를 끝까지 읽어야 잠그는 드라이버도 있다.
+                }
+            }
+        }
+    }
+
+    private static String inClause(Collection<Long> teamIds) {
+        return teamIds.stream().map(id -> "?").collect(Collectors.joining(", ", "(", ")"));
+    }
+
+    private static void update(Connection connection, String sql, Object... params) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                if (params[i] == null) {
+                    ps.setNull(i + 1, Types.INTEGER); //null인 파라미터는 나이(min/max)뿐. setObject(null)은 타입을 못 정하는 드라이버가 있다. (PostgreSQL)
+                } else {
+                    ps.setObject(i + 1, params[i]);
+                }
+            }
+            ps.executeUpdate();
+        }
+    }
+
+    private static Long teamIdOf(EntityPersister persister, Object[] state) {
+        Object team = state[propertyIndex(persister, "team")];
+        if (team == null) {
+            return null;
+        }
+        if (team instanceof HibernateProxy proxy) { //프록시를 초기화하지 않고 id만 꺼낸다.
+            return (Long) proxy.getHibernateLazyInitializer().getInternalIdentifier();
+        }
+        return ((Team) team).getId();
+    }
+
+    private static int ageOf(EntityPersister persister, Object[] state) {
+        return (Integer) state[propertyIndex(persister, "age")];
+    }
+
+    private static int propertyIndex(EntityPersister persister, String property) {
+        int index = Arrays.asList(persister.getPropertyNames()).indexOf(property);
+        if (index < 0) {
+            throw new IllegalStateException(persister.getEntityName() + " has no property " + property);
+        }
+        return index;
+    }
+
+    /**
+     * 한 트랜잭션 동안 한 팀에 생긴 변화량
+     */
+    private static class Delta {
+        private long count;
+        private long ageSum;
+        private Integer addedMin;
+        private Integer addedMax;
+        private Integer removedMin;
+        private Integer removedMax;
+        private boolean recompute;
+        private boolean deleted;
+
+        void add(int age) {
+            count++;
+            ageSum += age;
+            addedMin = addedMin == null ? age : Math.min(addedMin, age);
+            addedMax = addedMax == null ? age : Math.max(addedMax, age);
+        }
+
+        void remove(int age) {
+            count--;
+            ageSum -= age;
+            removedMin = removedMin == null ? age : Math.min(removedMin, age);
+            removedMax = removedMax == null ? age : Math.max(removedMax, age);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package study.querydsl.service;
+
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberBulkLoadResult;
+import study.querydsl.dto.MemberRow;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.TeamNameDictionary;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongConsumer;
+
+/**
+ * 회원 대량 적재
+ *
+ * em.persist()를 한 건씩 하면 insert마다 DB 왕복이 한 번씩 생긴다. 수백만 건이면 이것만으로 몇십 분이 걸린다.
+ *  - hibernate.jdbc.batch_size + order_inserts : insert를 모아서 JDBC batch로 보낸다. (application.yml)
+ *  - Member id는 allocationSize 1000 시퀀스(pooled-lo) : 시퀀스 조회도 1000건에 한 번
+ *  - chunkSize 건마다 flush + clear 후 커밋 : 영속성 컨텍스트(1차 캐시, 스냅샷)가 끝없이 커지지 않는다.
+ *
+ * 팀은 이름으로(TeamNameDictionary) 찾고 없으면 만든다. 회원에는 team 프록시(getReference)만 걸어서 팀 조회도, team.members 컬렉션 초기화도 하지 않는다.
+ * 이미 트랜잭션 안에서 호출하면 청크가 그 트랜잭션에 참여하므로 커밋은 호출한 쪽에서 한 번에 된다. (clear는 그대로 하니 호출한 쪽 엔티티도 준영속이 된다)
+ */
+@Slf4j
+@Component
+public class MemberBulkLoader {
+
+    private final EntityManager em;
+    private final TeamNameDictionary teamNameDictionary;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public MemberBulkLoader(EntityManager em,
+                            TeamNameDictionary teamNameDictionary,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${member.bulk-load.chunk-size:1000}") int chunkSize) {
+        this.em = em;
+        this.teamNameDictionary = teamNameDictionary;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    public MemberBulkLoadResult load(Iterable<MemberRow> rows) {
+        return load(rows.iterator());
+    }
+
+    public MemberBulkLoadResult load(Iterator<MemberRow> rows) {
+        return load(rows, committedRows -> {
+        });
+    }
+
+    /**
+     * @param onChunkCommitted 청크가 커밋될 때마다 지금까지 커밋된 누적 건수로 호출된다. 중간에 실패하면 이 건수 이후부터 다시 넣으면 된다.
+     */
+    public MemberBulkLoadResult load(Iterator<MemberRow> rows, LongConsumer onChunkCommitted) {
+        long start = System.nanoTime();
+        Teams teams = new Teams();
+        long loaded = 0;
+
+        while (rows.hasNext()) {
+            loaded += transactionTemplate.execute(status -> loadChunk(rows, teams));
+            onChunkCommitted.accept(loaded);
+            if (log.isDebugEnabled()) {
+                log.debug("member bulk load progress. rows={}, rows/sec={}", loaded, rate(loaded, start));
+            }
+        }
+
+        MemberBulkLoadResult result = new MemberBulkLoadResult(loaded, teams.created, Duration.ofNanos(System.nanoTime() - start));
+        log.info("member bulk load finished. rows={}, createdTeams={}, elapsed={}ms, rows/sec={}",
+                result.getRows(), result.getCreatedTeams(), result.getElapsed().toMillis(), (long) result.getRowsPerSecond());
+        return result;
+    }
+
+    private int loadChunk(Iterator<MemberRow> rows, Teams teams) {
+        em.unwrap(Session.class).setCacheMode(CacheMode.IGNORE); //적재하는 회원을 2차 캐시에 올리지 않는다. (다시 읽힌다는 보장이 없다)
+        int count = 0;
+        while (count < chunkSize && rows.hasNext()) {
+            MemberRow row = rows.next();
+            Member member = new Member(row.getUsername(), row.getAge());
+            if (row.getTeamName() != null) {
+                //생성자의 changeTeam()은 team.members에 add 하므로 쓰지 않는다. (컬렉션이 적재 건수만큼 커진다)
+                member.setTeam(em.getReference(Team.class, teamId(row.getTeamName(), teams)));
+            }
+            em.persist(member);
+            count++;
+        }
+        em.flush();
+        em.clear();
+        return count;
+    }
+
+    private Long teamId(String teamName, Teams teams) {
+        Long id = teams.idByName.get(teamName);
+        if (id != null) {
+            return id;
+        }
+
+        List<Long> found = teamNameDictionary.idsOf(teamName);
+        if (!found.contains(TeamNameDictionary.NO_TEAM_ID)) {
+            id = found.get(0); //이름이 같은 팀이 여럿이면 id가 가장 작은 팀
+        } else {
+            Team team = new Team(teamName);
+            em.persist(team); //시퀀스로 id가 바로 나온다. insert는 다음 flush 때
+            id = team.getId();
+            teams.created++;
+        }
+        teams.idByName.put(teamName, id);
+        return id;
+    }
+
+    private static long rate(long rows, long startNanos) {
+        long millis = Math.max(1, (System.nanoTime() - startNanos) / 1_000_000);
+        return rows * 1000 / millis;
+    }
+
+    /**
+     * 적재 한 번 동안 찾았거나 만든 팀 (청크마다 clear 하므로 엔티티가 아니라 id만 들고 있는다)
+     */
+    private static class Teams {
+        private final Map<String, Long> idByName = new HashMap<>();
+        private int created;
+    }
+}
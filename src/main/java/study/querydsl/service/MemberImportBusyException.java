@@ -0,0 +1,12 @@
+package study.querydsl.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class MemberImportBusyException extends RuntimeException {
+
+    public MemberImportBusyException(int maxConcurrent) {
+        super("too many imports in progress (max " + maxConcurrent + ")");
+    }
+}
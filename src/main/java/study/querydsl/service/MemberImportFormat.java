@@ -0,0 +1,14 @@
+package study.querydsl.service;
+
+import org.springframework.http.MediaType;
+
+public enum MemberImportFormat {
+    CSV,    //username,age,teamName (첫 줄이 정확히 username,age 또는 username,age,teamName 헤더일 때만 건너뛴다)
+    NDJSON; //한 줄에 {"username":..,"age":..,"teamName":..}
+
+    public static final String CSV_VALUE = "text/csv";
+
+    public static MemberImportFormat of(MediaType contentType) {
+        return MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType) ? NDJSON : CSV;
+    }
+}
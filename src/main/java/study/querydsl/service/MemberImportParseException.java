@@ -0,0 +1,17 @@
+package study.querydsl.service;
+
+import lombok.Getter;
+
+/**
+ * 가져오기 파일의 한 줄을 읽을 수 없을 때. record는 헤더/빈 줄을 뺀 1부터 시작하는 데이터 줄 번호
+ */
+@Getter
+public class MemberImportParseException extends IllegalArgumentException {
+
+    private final long record;
+
+    public MemberImportParseException(long record, String message, Throwable cause) {
+        super("record " + record + ": " + message, cause);
+        this.record = record;
+    }
+}
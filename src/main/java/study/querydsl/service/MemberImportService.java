@@ -0,0 +1,84 @@
+package study.querydsl.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberImportResult;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 회원 파일(CSV/NDJSON) 가져오기
+ *
+ * - 요청 본문을 한 줄씩 읽어서 바로 MemberBulkLoader로 넘긴다. (List로 모으지 않는다)
+ * - 청크(member.bulk-load.chunk-size)마다 커밋하므로 중간에 실패해도 앞 청크는 남는다. 결과의 resumeFrom을 skip으로 넘기면 이어서 넣는다.
+ * - 동시에 돌 수 있는 가져오기 수를 제한한다. 넘치면 503 (커넥션 풀과 DB 쓰기 부하 보호)
+ * - 메트릭: member.import.rows (커밋된 건수), member.import (소요 시간)
+ */
+@Slf4j
+@Component
+public class MemberImportService {
+
+    private final MemberBulkLoader memberBulkLoader;
+    private final ObjectMapper objectMapper;
+    private final Semaphore permits;
+    private final int maxConcurrent;
+    private final Counter importedRows;
+    private final Timer importTimer;
+
+    public MemberImportService(MemberBulkLoader memberBulkLoader,
+                               ObjectMapper objectMapper,
+                               MeterRegistry meterRegistry,
+                               @Value("${member.import.max-concurrent:2}") int maxConcurrent) {
+        this.memberBulkLoader = memberBulkLoader;
+        this.objectMapper = objectMapper;
+        this.permits = new Semaphore(maxConcurrent);
+        this.maxConcurrent = maxConcurrent;
+        this.importedRows = Counter.builder("member.import.rows")
+                .description("committed rows imported through /v1/members/import")
+                .register(meterRegistry);
+        this.importTimer = Timer.builder("member.import")
+                .register(meterRegistry);
+    }
+
+    public MemberImportResult importMembers(InputStream body, MemberImportFormat format, long skip) {
+        if (!permits.tryAcquire()) {
+            throw new MemberImportBusyException(maxConcurrent);
+        }
+        long start = System.nanoTime();
+        AtomicLong committed = new AtomicLong();
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+            MemberRowReader rows = new MemberRowReader(reader, format, objectMapper, skip);
+
+            memberBulkLoader.load(rows, committedRows -> {
+                importedRows.increment(committedRows - committed.get());
+                committed.set(committedRows);
+            });
+            return result(null, committed.get(), skip, start);
+        } catch (RuntimeException e) {
+            //실패한 청크만 롤백되었다. 앞 청크들은 커밋되어 있으니 거기서부터 다시 시작하면 된다.
+            log.warn("member import failed. skip={}, committed={}", skip, committed.get(), e);
+            return result(e, committed.get(), skip, start);
+        } finally {
+            importTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            permits.release();
+        }
+    }
+
+    private static MemberImportResult result(RuntimeException failure, long committed, long skip, long startNanos) {
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        return new MemberImportResult(failure == null, failure instanceof MemberImportParseException,
+                committed, skip + committed, elapsedMillis, failure == null ? null : failure.getMessage());
+    }
+}
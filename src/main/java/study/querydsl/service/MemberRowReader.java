@@ -0,0 +1,115 @@
+package study.querydsl.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberRow;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * 입력 스트림을 한 줄씩 읽어서 MemberRow로 바꾼다. 전체를 메모리에 올리지 않는다.
+ * MemberBulkLoader가 다음 행을 요구할 때만 읽으므로, 적재가 느리면 읽기도 멈추고 클라이언트 전송도 TCP 수준에서 멈춘다. (backpressure)
+ *
+ * skip: 앞에서부터 건너뛸 데이터 줄 수 (이전 가져오기에서 커밋된 건수를 넣어서 이어서 적재)
+ */
+class MemberRowReader implements Iterator<MemberRow> {
+
+    private final BufferedReader reader;
+    private final MemberImportFormat format;
+    private final ObjectMapper objectMapper;
+
+    private long record; //지금까지 읽은 데이터 줄 수 (건너뛴 줄 포함)
+    private boolean firstLine = true;
+    private MemberRow next;
+
+    MemberRowReader(BufferedReader reader, MemberImportFormat format, ObjectMapper objectMapper, long skip) {
+        this.reader = reader;
+        this.format = format;
+        this.objectMapper = objectMapper;
+        while (record < skip && nextDataLine() != null) {
+            record++;
+        }
+    }
+
+    long getRecord() {
+        return record;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            String line = nextDataLine();
+            if (line != null) {
+                record++;
+                next = parse(line);
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public MemberRow next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        MemberRow row = next;
+        next = null;
+        return row;
+    }
+
+    //빈 줄과 CSV 헤더를 건너뛴 다음 줄
+    private String nextDataLine() {
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                boolean header = firstLine && format == MemberImportFormat.CSV && isCsvHeader(line);
+                firstLine = false;
+                if (!header && StringUtils.hasText(line)) {
+                    return line;
+                }
+            }
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    //헤더는 정확히 username,age 또는 username,age,teamName 일 때만. (username1,20,teamA 같은 데이터 첫 줄을 버리지 않는다)
+    private static boolean isCsvHeader(String line) {
+        String[] fields = line.split(",", -1);
+        if (fields.length < 2 || fields.length > 3) {
+            return false;
+        }
+        return fields[0].trim().equalsIgnoreCase("username")
+                && fields[1].trim().equalsIgnoreCase("age")
+                && (fields.length == 2 || fields[2].trim().equalsIgnoreCase("teamName"));
+    }
+
+    private MemberRow parse(String line) {
+        try {
+            MemberRow row = format == MemberImportFormat.NDJSON ? objectMapper.readValue(line, MemberRow.class) : parseCsv(line);
+            if (!StringUtils.hasText(row.getUsername())) {
+                throw new IllegalArgumentException("username is empty");
+            }
+            if (!StringUtils.hasText(row.getTeamName())) {
+                row.setTeamName(null);
+            }
+            return row;
+        } catch (Exception e) {
+            throw new MemberImportParseException(record, e.getMessage(), e);
+        }
+    }
+
+    private static MemberRow parseCsv(String line) {
+        String[] fields = line.split(",", -1);
+        if (fields.length < 2 || fields.length > 3) {
+            throw new IllegalArgumentException("expected username,age[,teamName] but was " + fields.length + " fields");
+        }
+        String teamName = fields.length == 3 ? fields[2].trim() : null;
+        return new MemberRow(fields[0].trim(), Integer.parseInt(fields[1].trim()), teamName);
+    }
+}
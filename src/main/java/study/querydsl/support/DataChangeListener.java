@@ -0,0 +1,16 @@
+package study.querydsl.support;
+
+/**
+ * DataChangeTracker가 테이블 변경(insert/update/delete)을 감지하면 호출된다.
+ */
+public interface DataChangeListener {
+
+    /**
+     * 같은 트랜잭션 안에서 테이블 하나당 두 번 호출된다.
+     * 1) 처음 변경 SQL이 나갈 때 2) 트랜잭션이 끝난 뒤(커밋/롤백)
+     * 트랜잭션 밖이면 SQL이 나갈 때마다 호출된다.
+     *
+     * @param table 소문자 테이블 이름 (ex. member, team)
+     */
+    void onDataChange(String table);
+}
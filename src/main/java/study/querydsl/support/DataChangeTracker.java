@@ -0,0 +1,162 @@
+package study.querydsl.support;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 하이버네이트가 실행하는 모든 SQL을 보고(StatementInspector) 어떤 테이블이 변경되었는지 감지한다.
+ *
+ * 엔티티 저장(em.persist, 스프링 데이터 save)뿐 아니라 queryFactory.update(..).execute() 같은 벌크 연산,
+ * 네이티브 쿼리까지 결국 SQL로 나가기 때문에 여기서 한 번에 잡을 수 있다. (엔티티 리스너로는 벌크 연산을 못 잡는다.)
+ *
+ * 변경을 감지하면 등록된 DataChangeListener들에게 알린다.
+ * - SQL이 나가는 즉시 한 번: 같은 트랜잭션 안에서 바로 반영되도록
+ * - 트랜잭션이 끝난 뒤 한 번 더: 커밋 전에 다른 스레드가 옛날 데이터를 다시 캐시에 넣었을 수 있으므로
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DataChangeTracker implements StatementInspector, HibernatePropertiesCustomizer {
+
+    private static final int PREFIX_LENGTH = 120;
+
+    //EntityManagerFactory -> DataChangeTracker -> 리스너(EntityManager 필요) 순환 참조를 피하기 위해 리스너는 호출 시점에 찾는다.
+    private final ObjectProvider<DataChangeListener> listeners;
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, this);
+    }
+
+    @Override
+    public String inspect(String sql) {
+        String table = modifiedTable(sql);
+        if (table != null) {
+            onChange(table);
+        }
+        return sql;
+    }
+
+    /**
+     * 하이버네이트를 거치지 않고 JDBC로 직접 변경한 경우에는 이 메소드를 직접 호출해야 한다.
+     */
+    public void onChange(String table) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            notifyListeners(table);
+            return;
+        }
+
+        if (pendingTables().add(table)) { //같은 트랜잭션에서 같은 테이블은 처음 한 번만 즉시 알린다. (대량 insert 시 매번 알리지 않도록)
+            notifyListeners(table);
+        }
+    }
+
+    /**
+     * 현재 트랜잭션에서 변경 SQL이 한 번이라도 나갔는지
+     */
+    public boolean hasPendingChanges() {
+        Object pending = TransactionSynchronizationManager.getResource(this);
+        return pending != null && !((Set<?>) pending).isEmpty();
+    }
+
+    /**
+     * 현재 트랜잭션에서 해당 테이블을 변경했는지
+     */
+    public boolean hasPendingChanges(String table) {
+        Object pending = TransactionSynchronizationManager.getResource(this);
+        return pending != null && ((Set<?>) pending).contains(table);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<String> pendingTables() {
+        Set<String> pending = (Set<String>) TransactionSynchronizationManager.getResource(this);
+        if (pending != null) {
+            return pending;
+        }
+
+        Set<String> newPending = new HashSet<>();
+        TransactionSynchronizationManager.bindResource(this, newPending);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(DataChangeTracker.this);
+                newPending.forEach(DataChangeTracker.this::notifyListeners);
+            }
+        });
+        return newPending;
+    }
+
+    private void notifyListeners(String table) {
+        listeners.orderedStream().forEach(listener -> {
+            try {
+                listener.onDataChange(table);
+            } catch (RuntimeException e) {
+                log.warn("data change listener failed. listener={}, table={}", listener, table, e); //리스너 실패로 쓰기가 실패하면 안된다.
+            }
+        });
+    }
+
+    /**
+     * insert/update/delete/merge 대상 테이블 이름. 조회 SQL이면 null
+     * use_sql_comments 옵션을 켜면 SQL 앞에 주석이 붙기 때문에 주석은 건너뛴다.
+     */
+    static String modifiedTable(String sql) {
+        if (sql == null) {
+            return null;
+        }
+        int start = skipLeadingComments(sql);
+        String head = sql.substring(start, Math.min(sql.length(), start + PREFIX_LENGTH)).toLowerCase(Locale.ROOT);
+
+        String rest;
+        if (head.startsWith("insert into ")) {
+            rest = head.substring("insert into ".length());
+        } else if (head.startsWith("update ")) {
+            rest = head.substring("update ".length());
+        } else if (head.startsWith("delete from ")) {
+            rest = head.substring("delete from ".length());
+        } else if (head.startsWith("merge into ")) {
+            rest = head.substring("merge into ".length());
+        } else {
+            return null;
+        }
+
+        rest = rest.stripLeading();
+        int end = 0;
+        while (end < rest.length() && !Character.isWhitespace(rest.charAt(end)) && rest.charAt(end) != '(') {
+            end++;
+        }
+        String table = rest.substring(0, end).replace("\"", "");
+        int schemaDot = table.lastIndexOf('.');
+        return schemaDot < 0 ? table : table.substring(schemaDot + 1);
+    }
+
+    private static int skipLeadingComments(String sql) {
+        int i = 0;
+        while (true) {
+            while (i < sql.length() && Character.isWhitespace(sql.charAt(i))) {
+                i++;
+            }
+            if (sql.startsWith("/*", i)) {
+                int close = sql.indexOf("*/", i + 2);
+                if (close < 0) {
+                    return sql.length();
+                }
+                i = close + 2;
+            } else {
+                return i;
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package study.querydsl.support;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * GET 응답에 테이블 버전(DataVersions)으로 만든 ETag를 붙인다.
+ * If-None-Match가 같으면 컨트롤러를 호출하지 않고 304를 돌려준다. (DataVersionETagInterceptor)
+ *
+ * 응답이 지정한 테이블 외의 데이터에 의존하면 안 된다.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface DataVersionETag {
+
+    /**
+     * 응답이 의존하는 테이블 (소문자)
+     */
+    String[] value();
+}
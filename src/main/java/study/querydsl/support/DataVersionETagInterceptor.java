@@ -0,0 +1,57 @@
+package study.querydsl.support;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * @DataVersionETag 가 붙은 GET 요청에 ETag를 붙이고, If-None-Match가 같으면 304로 끝낸다.
+ *
+ * ETag는 응답 본문이 아니라 테이블 버전으로 만든다. (ShallowEtagHeaderFilter는 본문을 다 만들어야 해서 DB 조회를 못 줄인다)
+ * URL(검색 조건, 페이지)은 클라이언트가 캐시 키로 쓰기 때문에 ETag에 넣지 않는다.
+ *
+ * 버전을 조회 전에 읽기 때문에, 그 사이에 쓰기가 커밋되면 새 데이터에 옛 ETag가 붙을 수는 있다.
+ * 그래도 다음 요청에서는 버전이 달라져 다시 내려받으므로 옛 데이터가 새 ETag로 남는 일은 없다.
+ */
+@Component
+@RequiredArgsConstructor
+public class DataVersionETagInterceptor implements HandlerInterceptor {
+
+    private final DataVersions dataVersions;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+        if (!HttpMethod.GET.matches(request.getMethod()) && !HttpMethod.HEAD.matches(request.getMethod())) {
+            return true;
+        }
+        DataVersionETag annotation = findAnnotation(handlerMethod);
+        if (annotation == null) {
+            return true;
+        }
+
+        String etag = "W/\"" + dataVersions.tag(annotation.value()) + "\""; //JSON 직렬화 결과까지 같다고 보장하지 않으므로 weak
+        if (new ServletWebRequest(request, response).checkNotModified(etag)) { //304 + ETag 헤더까지 처리
+            return false;
+        }
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache"); //캐시는 하되 매번 ETag로 확인
+        return true;
+    }
+
+    private static DataVersionETag findAnnotation(HandlerMethod handlerMethod) {
+        DataVersionETag annotation = handlerMethod.getMethodAnnotation(DataVersionETag.class);
+        if (annotation != null) {
+            return annotation;
+        }
+        return AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getBeanType(), DataVersionETag.class);
+    }
+}
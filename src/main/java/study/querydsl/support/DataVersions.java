@@ -0,0 +1,44 @@
+package study.querydsl.support;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 테이블별 데이터 버전. DataChangeTracker가 변경을 알릴 때마다 1씩 올린다.
+ *
+ * 하이버네이트를 거치는 쓰기는 벌크 연산(execute())까지 모두 잡히고, 트랜잭션이 끝난 뒤에도 한 번 더 올라가기 때문에
+ * 커밋 전에 옛날 데이터로 만든 응답과 커밋 후 응답의 버전이 항상 다르다.
+ *
+ * 버전은 이 JVM 안에서만 의미가 있다. 재시작하면 0부터 다시 세므로 epoch(시작 시각)를 같이 써서 구분한다.
+ * 서버가 여러 대면 다른 서버의 쓰기는 보이지 않는다. (그때는 DB나 메시지로 버전을 공유해야 한다)
+ */
+@Component
+public class DataVersions implements DataChangeListener {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+    private final ConcurrentMap<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    @Override
+    public void onDataChange(String table) {
+        versions.computeIfAbsent(table, t -> new AtomicLong()).incrementAndGet();
+    }
+
+    public long version(String table) {
+        AtomicLong version = versions.get(table);
+        return version == null ? 0 : version.get();
+    }
+
+    /**
+     * 테이블 버전들을 이어 붙인 문자열. ETag 값으로 쓴다. (ex. lq3x1k2-12-3)
+     */
+    public String tag(String... tables) {
+        StringBuilder sb = new StringBuilder(epoch);
+        for (String table : tables) {
+            sb.append('-').append(version(table));
+        }
+        return sb.toString();
+    }
+}
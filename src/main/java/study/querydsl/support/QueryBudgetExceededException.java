@@ -0,0 +1,8 @@
+package study.querydsl.support;
+
+public class QueryBudgetExceededException extends IllegalStateException {
+
+    public QueryBudgetExceededException(int budget, SqlStatistics statistics) {
+        super("SQL statement budget " + budget + " exceeded: " + statistics.summary());
+    }
+}
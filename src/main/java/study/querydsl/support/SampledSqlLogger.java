@@ -0,0 +1,186 @@
+package study.querydsl.support;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.JdbcEventListener;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * 운영용 SQL 로그 (샘플링 + 느린 SQL + 비동기 기록)
+ *
+ * p6spy 기본 로깅이나 org.hibernate.SQL=debug는 모든 SQL을 요청 스레드에서 포맷하고 바로 쓴다.
+ * 여기서는 요청 스레드에서 하는 일을 최소로 줄인다.
+ * - 1/sample-rate 확률로 고른 SQL과 slow-threshold 이상 걸린 SQL만 남긴다. (에러 난 SQL은 항상)
+ * - 요청 스레드는 SQL 문자열 참조와 시간만 큐에 넣고 끝. 공백 정리와 로그 출력은 sql-log-writer 스레드가 한다.
+ * - 큐 크기(buffer-size)가 정해져 있어서 writer가 못 따라가면 새 항목을 버리고 dropped만 센다. (요청이 로그 때문에 기다리지 않는다)
+ * - 파라미터 값은 느린 SQL만 남긴다. (getSqlWithValues()는 값을 문자열로 만드는 비용이 있다)
+ *
+ * 현재 설정과 통계는 /actuator/sqllog 로 조회만 된다. (SqlLogEndpoint)
+ * 재시작 없이 바꾸는 건 JMX로만 할 수 있다. (SqlLogJmxEndpointExtension, 웹에는 열지 않는다)
+ * 로그는 study.querydsl.sql 로거로 나간다.
+ */
+@Slf4j
+@Component
+public class SampledSqlLogger extends JdbcEventListener {
+
+    private static final Logger SQL_LOG = LoggerFactory.getLogger("study.querydsl.sql");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private volatile boolean enabled;
+    private volatile int sampleRate;
+    private volatile long slowThresholdNanos;
+
+    private final BlockingQueue<Entry> buffer;
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final Consumer<String> sink;
+    private final Thread writer;
+
+    public SampledSqlLogger(@Value("${member.sql.log.enabled:false}") boolean enabled,
+                            @Value("${member.sql.log.sample-rate:100}") int sampleRate,
+                            @Value("${member.sql.log.slow-threshold:200ms}") Duration slowThreshold,
+                            @Value("${member.sql.log.buffer-size:8192}") int bufferSize) {
+        this(enabled, sampleRate, slowThreshold, bufferSize, SQL_LOG::info);
+    }
+
+    SampledSqlLogger(boolean enabled, int sampleRate, Duration slowThreshold, int bufferSize, Consumer<String> sink) {
+        configure(enabled, sampleRate, slowThreshold);
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        this.sink = sink;
+        this.writer = new Thread(this::drain, "sql-log-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    public void configure(Boolean enabled, Integer sampleRate, Duration slowThreshold) {
+        if (sampleRate != null && sampleRate < 0) {
+            throw new IllegalArgumentException("sampleRate must be >= 0 (0 = slow statements only): " + sampleRate);
+        }
+        if (enabled != null) {
+            this.enabled = enabled;
+        }
+        if (sampleRate != null) {
+            this.sampleRate = sampleRate;
+        }
+        if (slowThreshold != null) {
+            this.slowThresholdNanos = slowThreshold.toNanos();
+        }
+        log.info("sql log: enabled={}, sampleRate=1/{}, slowThreshold={}", this.enabled, this.sampleRate, getSlowThreshold());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public Duration getSlowThreshold() {
+        return Duration.ofNanos(slowThresholdNanos);
+    }
+
+    public long getWritten() {
+        return written.get();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public int getBuffered() {
+        return buffer.size();
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        if (!enabled) {
+            return;
+        }
+        boolean slow = timeElapsedNanos >= slowThresholdNanos;
+        if (!slow && e == null && !sampled()) {
+            return;
+        }
+        //느린 SQL만 파라미터 값까지 남긴다.
+        record(slow ? statementInformation.getSqlWithValues() : statementInformation.getSql(), timeElapsedNanos, slow, e);
+    }
+
+    void record(String sql, long elapsedNanos, boolean slow, SQLException e) {
+        Entry entry = new Entry(System.currentTimeMillis(), Thread.currentThread().getName(), sql, elapsedNanos, slow, e);
+        if (!buffer.offer(entry)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    private boolean sampled() {
+        int rate = sampleRate;
+        return rate > 0 && (rate == 1 || ThreadLocalRandom.current().nextInt(rate) == 0);
+    }
+
+    private void drain() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                write(buffer.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) { //로그 한 줄 때문에 writer가 죽지 않도록
+                log.warn("failed to write sql log", e);
+            }
+        }
+    }
+
+    private void write(Entry entry) {
+        String sql = entry.sql == null ? "" : WHITESPACE.matcher(entry.sql).replaceAll(" ").trim();
+        sink.accept(String.format("%s %s %.1fms thread=%s%s | %s",
+                Instant.ofEpochMilli(entry.timestamp),
+                entry.slow ? "SLOW" : "SAMPLED",
+                entry.elapsedNanos / 1_000_000.0,
+                entry.thread,
+                entry.error == null ? "" : " error=" + entry.error.getMessage(),
+                sql));
+        written.incrementAndGet();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        writer.interrupt();
+        writer.join(TimeUnit.SECONDS.toMillis(1));
+        Entry entry;
+        while ((entry = buffer.poll()) != null) { //남은 것은 종료하는 스레드에서 쓴다.
+            write(entry);
+        }
+    }
+
+    private static final class Entry {
+        private final long timestamp;
+        private final String thread;
+        private final String sql;
+        private final long elapsedNanos;
+        private final boolean slow;
+        private final SQLException error;
+
+        private Entry(long timestamp, String thread, String sql, long elapsedNanos, boolean slow, SQLException error) {
+            this.timestamp = timestamp;
+            this.thread = thread;
+            this.sql = sql;
+            this.elapsedNanos = elapsedNanos;
+            this.slow = slow;
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package study.querydsl.support;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * SampledSqlLogger 상태 조회. GET /actuator/sqllog
+ *
+ * 설정 변경은 JMX로만 한다. (SqlLogJmxEndpointExtension)
+ * 웹으로 열어두면 인증 없이 sampleRate=1, slowThreshold=0 으로 바꿔서 모든 SQL의 파라미터 값(개인정보)을 로그에 남기게 할 수 있다.
+ */
+@Component
+@Endpoint(id = "sqllog")
+@RequiredArgsConstructor
+public class SqlLogEndpoint {
+
+    private final SampledSqlLogger sampledSqlLogger;
+
+    @ReadOperation
+    public Map<String, Object> settings() {
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("enabled", sampledSqlLogger.isEnabled());
+        settings.put("sampleRate", sampledSqlLogger.getSampleRate());
+        settings.put("slowThresholdMillis", sampledSqlLogger.getSlowThreshold().toMillis());
+        settings.put("written", sampledSqlLogger.getWritten());
+        settings.put("dropped", sampledSqlLogger.getDropped());
+        settings.put("buffered", sampledSqlLogger.getBuffered());
+        return settings;
+    }
+}
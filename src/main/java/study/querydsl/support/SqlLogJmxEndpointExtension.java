@@ -0,0 +1,30 @@
+package study.querydsl.support;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.jmx.annotation.EndpointJmxExtension;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * SampledSqlLogger 설정을 재시작 없이 바꾼다. JMX(org.springframework.boot:type=Endpoint,name=Sqllog)에만 있는 operation
+ *
+ * configure(enabled, sampleRate, slowThresholdMillis)  (넘긴 값만 바뀐다)
+ */
+@Component
+@EndpointJmxExtension(endpoint = SqlLogEndpoint.class)
+@RequiredArgsConstructor
+public class SqlLogJmxEndpointExtension {
+
+    private final SqlLogEndpoint sqlLogEndpoint;
+    private final SampledSqlLogger sampledSqlLogger;
+
+    @WriteOperation
+    public Map<String, Object> configure(@Nullable Boolean enabled, @Nullable Integer sampleRate, @Nullable Long slowThresholdMillis) {
+        sampledSqlLogger.configure(enabled, sampleRate, slowThresholdMillis == null ? null : Duration.ofMillis(slowThresholdMillis));
+        return sqlLogEndpoint.settings();
+    }
+}
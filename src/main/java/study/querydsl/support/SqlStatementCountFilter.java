@@ -0,0 +1,78 @@
+package study.querydsl.support;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * 요청마다 SQL 수를 세고, 너무 많거나 같은 SQL이 반복되면(N+1 의심) 경고 로그를 남긴다.
+ * 비동기 요청은 응답이 끝났을 때(AsyncListener.onComplete) 작업 스레드에서 실행된 SQL까지 합쳐서 남긴다.
+ */
+@Slf4j
+@Component
+public class SqlStatementCountFilter extends OncePerRequestFilter {
+
+    private final int warnStatements;
+    private final int warnRepeat;
+
+    public SqlStatementCountFilter(@Value("${member.sql.warn.statements:30}") int warnStatements,
+                                   @Value("${member.sql.warn.repeat:10}") int warnRepeat) {
+        this.warnStatements = warnStatements;
+        this.warnRepeat = warnRepeat;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        SqlStatementCounter.begin();
+        boolean async = false;
+        try {
+            filterChain.doFilter(request, response);
+            async = isAsyncStarted(request);
+        } finally {
+            SqlStatistics statistics = SqlStatementCounter.end();
+            if (async) {
+                //비동기 요청(/v8, /v1/members/stream 등)은 작업 스레드에서 이어서 센다. (SqlStatementCounter.propagate) 끝났을 때 남긴다.
+                String method = request.getMethod();
+                String uri = request.getRequestURI();
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        report(method, uri, statistics);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                report(request.getMethod(), request.getRequestURI(), statistics);
+            }
+        }
+    }
+
+    private void report(String method, String uri, SqlStatistics statistics) {
+        if (statistics.getStatementCount() > warnStatements || statistics.getMaxRepeat() > warnRepeat) {
+            log.warn("too many SQL statements. {} {} {}", method, uri, statistics.summary());
+        } else if (log.isDebugEnabled()) {
+            log.debug("{} {} {}", method, uri, statistics.summary());
+        }
+    }
+}
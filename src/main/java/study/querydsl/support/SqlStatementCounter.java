@@ -0,0 +1,123 @@
+package study.querydsl.support;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.JdbcEventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+
+/**
+ * 스레드(요청, 테스트) 단위 SQL 카운터
+ *
+ * p6spy 데이터소스 레벨에서 실행된 SQL 수, 모양(shape)별 횟수, DB 시간을 센다. (StatementInspector는 실행 시간을 모른다)
+ * begin() ~ end() 사이에 같은 스레드에서 실행된 SQL만 센다.
+ * 다른 스레드에서 실행되는 작업은 propagate()로 감싸서 넘겨야 같은 범위에 들어간다.
+ * (ReadOnlyQueryExecutor(/v7), MemberSearchAsyncExecutor(/v8), /v1/members/stream의 WebAsyncTask는 감싸서 실행한다)
+ *
+ * 범위 지정: HTTP 요청은 SqlStatementCountFilter, 테스트는 @QueryBudget 또는 measure()
+ */
+@Component
+public class SqlStatementCounter extends JdbcEventListener {
+
+    private static final ThreadLocal<SqlStatistics> CURRENT = new ThreadLocal<>();
+
+    private static final Pattern COMMENT = Pattern.compile("/\\*.*?\\*/", Pattern.DOTALL);
+    private static final Pattern IN_LIST = Pattern.compile("in\\s*\\(\\s*\\?(\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    public static SqlStatistics begin() {
+        return begin(0);
+    }
+
+    /**
+     * @param failFastBudget 이 건수를 넘는 SQL이 실행되는 순간 QueryBudgetExceededException (0이면 세기만 한다)
+     */
+    public static SqlStatistics begin(int failFastBudget) {
+        SqlStatistics statistics = new SqlStatistics(CURRENT.get(), failFastBudget);
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    public static SqlStatistics end() {
+        SqlStatistics statistics = CURRENT.get();
+        if (statistics == null) {
+            throw new IllegalStateException("SqlStatementCounter.begin() was not called");
+        }
+        if (statistics.getParent() == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(statistics.getParent());
+        }
+        return statistics;
+    }
+
+    /**
+     * 지금 스레드의 측정 범위를 task가 실행되는 스레드로 넘긴다. 측정 중이 아니면 task를 그대로 돌려준다.
+     * task가 끝나면 실행한 스레드의 원래 범위로 되돌린다. (풀 스레드에 남지 않는다)
+     */
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        SqlStatistics scope = CURRENT.get();
+        if (scope == null) {
+            return task;
+        }
+        return () -> {
+            SqlStatistics previous = CURRENT.get();
+            CURRENT.set(scope);
+            try {
+                return task.call();
+            } finally {
+                if (previous == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(previous);
+                }
+            }
+        };
+    }
+
+    public static Runnable propagate(Runnable task) {
+        Callable<Object> callable = propagate(Executors.callable(task));
+        return () -> {
+            try {
+                callable.call();
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException(e); //Runnable을 감쌌으므로 checked 예외는 나오지 않는다.
+            }
+        };
+    }
+
+    public static SqlStatistics measure(Runnable work) {
+        SqlStatistics statistics = begin();
+        try {
+            work.run();
+        } finally {
+            end();
+        }
+        return statistics;
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        SqlStatistics statistics = CURRENT.get();
+        if (statistics != null) {
+            statistics.record(shapeOf(statementInformation.getSql()), timeElapsedNanos);
+        }
+    }
+
+    /**
+     * 주석(use_sql_comments)과 공백 차이, in (?, ?, ...) 길이 차이를 없앤 SQL
+     */
+    static String shapeOf(String sql) {
+        if (sql == null) {
+            return "";
+        }
+        String shape = COMMENT.matcher(sql).replaceAll(" ");
+        shape = WHITESPACE.matcher(shape).replaceAll(" ").trim().toLowerCase();
+        return IN_LIST.matcher(shape).replaceAll("in (?)");
+    }
+}
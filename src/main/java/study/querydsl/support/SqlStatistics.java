@@ -0,0 +1,79 @@
+package study.querydsl.support;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 한 범위(HTTP 요청, 테스트 메소드 등) 동안 실행된 SQL 통계. SqlStatementCounter가 채운다.
+ *
+ * 같은 모양(shape)의 SQL이 여러 번 나가면 N+1일 가능성이 높다. ex) select ... from team where team_id=? 가 회원 수만큼
+ *
+ * SqlStatementCounter.propagate()로 넘긴 작업이 다른 스레드에서 동시에 기록할 수 있어서 동기화한다.
+ */
+public class SqlStatistics {
+
+    private final SqlStatistics parent; //중첩 측정이면 바깥 범위에도 같이 센다.
+    private final int failFastBudget;   //0보다 크면 이 건수를 넘는 순간 QueryBudgetExceededException
+    private final Map<String, Integer> countByShape = new LinkedHashMap<>();
+    private int statementCount;
+    private long elapsedNanos;
+
+    SqlStatistics(SqlStatistics parent, int failFastBudget) {
+        this.parent = parent;
+        this.failFastBudget = failFastBudget;
+    }
+
+    SqlStatistics getParent() {
+        return parent;
+    }
+
+    synchronized void record(String shape, long nanos) {
+        statementCount++;
+        elapsedNanos += nanos;
+        countByShape.merge(shape, 1, Integer::sum);
+        if (parent != null) {
+            parent.record(shape, nanos);
+        }
+        if (failFastBudget > 0 && statementCount > failFastBudget) {
+            throw new QueryBudgetExceededException(failFastBudget, this);
+        }
+    }
+
+    public synchronized int getStatementCount() {
+        return statementCount;
+    }
+
+    public synchronized Duration getElapsed() {
+        return Duration.ofNanos(elapsedNanos);
+    }
+
+    public synchronized Map<String, Integer> getShapes() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(countByShape));
+    }
+
+    /**
+     * 두 번 이상 실행된 SQL 모양과 횟수 (많은 순)
+     */
+    public synchronized Map<String, Integer> getRepeatedShapes() {
+        return countByShape.entrySet().stream()
+                .filter(e -> e.getValue() > 1)
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, LinkedHashMap::new));
+    }
+
+    public synchronized int getMaxRepeat() {
+        return countByShape.values().stream().mapToInt(Integer::intValue).max().orElse(0);
+    }
+
+    public synchronized String summary() {
+        StringBuilder summary = new StringBuilder()
+                .append("statements=").append(statementCount)
+                .append(", dbTime=").append(getElapsed().toMillis()).append("ms");
+        getRepeatedShapes().entrySet().stream().limit(3).forEach(e ->
+                summary.append("\n  x").append(e.getValue()).append(' ').append(e.getKey()));
+        return summary.toString();
+    }
+}
@@ -0,0 +1,98 @@
+package study.querydsl.support;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.stream.Collectors;
+
+/**
+ * 가상 스레드 캐리어 고정(pinning) 감시 (virtual 프로파일)
+ *
+ * 가상 스레드가 synchronized 블록(또는 네이티브 프레임) 안에서 막히면 캐리어 스레드를 놓지 못한다.
+ * JDBC 드라이버/커넥션 풀/하이버네이트 경로에 이런 곳이 있으면 가상 스레드를 써도 동시성이 캐리어 수(CPU 수)로 줄어든다.
+ * JFR jdk.VirtualThreadPinned 이벤트(threshold 이상 고정된 경우)를 받아서 스택과 함께 경고 로그를 남기고 jvm.threads.virtual.pinned로 센다.
+ *
+ * 시작할 때 전체 스택을 보고 싶으면 -Djdk.tracePinnedThreads=full
+ */
+@Slf4j
+@Component
+@Profile("virtual")
+public class VirtualThreadPinningMonitor {
+
+    private static final String EVENT = "jdk.VirtualThreadPinned";
+    private static final int RECENT = 20;
+
+    private final Duration threshold;
+    private final Counter pinned;
+    private final ConcurrentLinkedDeque<String> recent = new ConcurrentLinkedDeque<>();
+    private RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(@Value("${member.virtual-threads.pinned-threshold:20ms}") Duration threshold,
+                                       MeterRegistry meterRegistry) {
+        this.threshold = threshold;
+        this.pinned = Counter.builder("jvm.threads.virtual.pinned")
+                .description("virtual threads that blocked while pinned to their carrier")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        stream = new RecordingStream();
+        stream.enable(EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(EVENT, this::onPinned);
+        stream.startAsync();
+        log.info("virtual thread pinning monitor started. threshold={}", threshold);
+    }
+
+    @PreDestroy
+    public void stop() {
+        stream.close();
+    }
+
+    public long getPinnedCount() {
+        return (long) pinned.count();
+    }
+
+    /**
+     * 최근 고정 이벤트의 스택 (최대 20개)
+     */
+    public List<String> getRecentStacks() {
+        return List.copyOf(recent);
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinned.increment();
+        String stack = describe(event);
+        recent.addFirst(stack);
+        while (recent.size() > RECENT) {
+            recent.pollLast();
+        }
+        log.warn("virtual thread pinned for {}ms\n{}", event.getDuration().toMillis(), stack);
+    }
+
+    private static String describe(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return "(no stack trace)";
+        }
+        return event.getStackTrace().getFrames().stream()
+                .limit(30)
+                .map(VirtualThreadPinningMonitor::frame)
+                .collect(Collectors.joining("\n"));
+    }
+
+    private static String frame(RecordedFrame frame) {
+        return "\tat " + frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+}
@@ -29,6 +29,9 @@ import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
 import study.querydsl.entity.QTeam;
 import study.querydsl.entity.Team;
+import study.querydsl.support.QueryBudget;
+import study.querydsl.support.SqlStatementCounter;
+import study.querydsl.support.SqlStatistics;
 
 import java.util.List;
 
@@ -404,6 +407,7 @@ public class QuerydslBasicTest {
     EntityManagerFactory emf;
 
     @Test
+    @QueryBudget(1)
     public void fetchJoinFalse() {
         em.flush();
         em.clear();
@@ -418,6 +422,7 @@ public class QuerydslBasicTest {
     }
 
     @Test
+    @QueryBudget(1) //member + team을 쿼리 한 번에
     public void fetchJoinTrue() {
         em.flush();
         em.clear();
@@ -432,6 +437,19 @@ public class QuerydslBasicTest {
         assertThat(loaded).as("페치 조인 적용").isTrue();
     }
 
+    //페치 조인 없이 회원 목록에서 member.getTeam().getName()을 부르면 팀마다 select가 한 번씩 더 나간다. (N+1)
+    @Test
+    public void lazyTeamNPlusOne() {
+        List<Member> members = queryFactory
+                .selectFrom(member)
+                .fetch();
+
+        SqlStatistics statistics = SqlStatementCounter.measure(() -> members.forEach(m -> m.getTeam().getName()));
+
+        assertThat(statistics.getStatementCount()).isEqualTo(2); //teamA, teamB
+        assertThat(statistics.getMaxRepeat()).as("같은 select가 팀 수만큼 반복").isEqualTo(2);
+    }
+
     /*
     TODO
      ▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼
@@ -0,0 +1,116 @@
+package study.querydsl.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * H2 메모리 DB 두 개(primary, replica)로 라우팅 확인. 스프링 컨텍스트 없이 조립한다.
+ */
+class RoutingDataSourceTest {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1";
+
+    JdbcTemplate primaryDb;
+    JdbcTemplate replicaDb;
+    RoutingDataSource routingDataSource;
+    ReplicaSelector replicaSelector;
+    JdbcTemplate jdbcTemplate;
+    TransactionTemplate writeTx;
+    TransactionTemplate readOnlyTx;
+
+    @BeforeEach
+    public void before() {
+        primaryDb = new JdbcTemplate(new DriverManagerDataSource(PRIMARY_URL, "sa", ""));
+        replicaDb = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+        primaryDb.execute("create table node (name varchar(20))");
+        primaryDb.update("insert into node values ('primary')");
+        replicaDb.execute("create table node (name varchar(20))");
+        replicaDb.update("insert into node values ('replica')");
+        replicaDb.execute("create table replica_lag (seconds int)");
+        replicaDb.update("insert into replica_lag values (0)");
+
+        ReplicaRoutingProperties.Replica replica = new ReplicaRoutingProperties.Replica();
+        replica.setUrl(REPLICA_URL);
+        replica.setUsername("sa");
+        replica.setPassword("");
+        replica.setLagQuery("select seconds from replica_lag");
+        ReplicaRoutingProperties properties = new ReplicaRoutingProperties();
+        properties.setReplicas(List.of(replica));
+        properties.setMaxLag(Duration.ofSeconds(5));
+        properties.setCheckInterval(Duration.ofHours(1)); //테스트에서는 checkHealth()를 직접 부른다.
+
+        replicaSelector = new ReplicaSelector(properties);
+        routingDataSource = new RoutingDataSource(new DriverManagerDataSource(PRIMARY_URL, "sa", ""), replicaSelector, Duration.ofMillis(200));
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        writeTx = new TransactionTemplate(transactionManager);
+        readOnlyTx = new TransactionTemplate(transactionManager);
+        readOnlyTx.setReadOnly(true);
+    }
+
+    @AfterEach
+    public void after() throws Exception {
+        routingDataSource.close();
+        primaryDb.execute("drop all objects");
+        replicaDb.execute("drop all objects");
+    }
+
+    @Test
+    public void routeByTransaction() {
+        assertThat(writeTx.execute(status -> node())).isEqualTo("primary");
+        assertThat(readOnlyTx.execute(status -> node())).isEqualTo("replica");
+        assertThat(node()).isEqualTo("primary"); //트랜잭션 없음
+        assertThat(DataSourceRouting.onReplica(this::node)).isEqualTo("replica");
+
+        //쓰기 트랜잭션 안의 readOnly는 바깥 트랜잭션(primary)에 참여한다.
+        assertThat(writeTx.execute(status -> readOnlyTx.execute(inner -> node()))).isEqualTo("primary");
+    }
+
+    @Test
+    public void fallbackOnLag() {
+        replicaDb.update("update replica_lag set seconds = 60");
+        replicaSelector.checkHealth();
+        assertThat(readOnlyTx.execute(status -> node())).isEqualTo("primary");
+
+        replicaDb.update("update replica_lag set seconds = 1");
+        replicaSelector.checkHealth();
+        assertThat(readOnlyTx.execute(status -> node())).isEqualTo("replica");
+    }
+
+    @Test
+    public void fallbackOnFailure() {
+        replicaDb.execute("drop table replica_lag"); //lag-query 실패 = 장애
+        replicaSelector.checkHealth();
+
+        assertThat(replicaSelector.select()).isNull();
+        assertThat(readOnlyTx.execute(status -> node())).isEqualTo("primary");
+    }
+
+    @Test
+    public void primaryAfterLocalWrite() throws InterruptedException {
+        routingDataSource.onLocalWrite();
+        assertThat(readOnlyTx.execute(status -> node())).isEqualTo("primary");
+        assertThat(DataSourceRouting.onReplica(this::node)).isEqualTo("primary");
+
+        Thread.sleep(300);
+        assertThat(readOnlyTx.execute(status -> node())).isEqualTo("replica");
+    }
+
+    private String node() {
+        return jdbcTemplate.queryForObject("select name from node", String.class);
+    }
+}
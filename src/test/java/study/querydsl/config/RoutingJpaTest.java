@@ -0,0 +1,111 @@
+package study.querydsl.config;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.support.DataChangeListener;
+import study.querydsl.support.DataChangeTracker;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * RoutingDataSourceTest와 같은 구성을 JpaTransactionManager(HibernateJpaDialect)로 확인한다.
+ * JPA는 트랜잭션 시작 시 커넥션을 준비하므로 LazyConnectionDataSourceProxy 없이는 readOnly 여부를 알기 전에 primary로 가버린다.
+ */
+class RoutingJpaTest {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:routing-jpa-primary;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-jpa-replica;DB_CLOSE_DELAY=-1";
+
+    JdbcTemplate primaryDb;
+    JdbcTemplate replicaDb;
+    RoutingDataSource routingDataSource;
+    EntityManagerFactory emf;
+    EntityManager em;
+    TransactionTemplate writeTx;
+    TransactionTemplate readOnlyTx;
+
+    @BeforeEach
+    public void before() {
+        primaryDb = new JdbcTemplate(new DriverManagerDataSource(PRIMARY_URL, "sa", ""));
+        replicaDb = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+        primaryDb.execute("create table node (name varchar(20))");
+        primaryDb.update("insert into node values ('primary')");
+        replicaDb.execute("create table node (name varchar(20))");
+        replicaDb.update("insert into node values ('replica')");
+
+        ReplicaRoutingProperties.Replica replica = new ReplicaRoutingProperties.Replica();
+        replica.setUrl(REPLICA_URL);
+        replica.setUsername("sa");
+        replica.setPassword("");
+        ReplicaRoutingProperties properties = new ReplicaRoutingProperties();
+        properties.setReplicas(List.of(replica));
+        properties.setCheckInterval(Duration.ofHours(1));
+
+        routingDataSource = new RoutingDataSource(new DriverManagerDataSource(PRIMARY_URL, "sa", ""),
+                new ReplicaSelector(properties), Duration.ofMinutes(1));
+
+        //애플리케이션과 같이 쓰기 SQL을 DataChangeTracker가 보고 ReplicaWriteFence에 알린다.
+        StaticListableBeanFactory listeners = new StaticListableBeanFactory(Map.of("replicaWriteFence", new ReplicaWriteFence(routingDataSource)));
+        DataChangeTracker tracker = new DataChangeTracker(listeners.getBeanProvider(DataChangeListener.class));
+
+        LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+        factory.setDataSource(new LazyConnectionDataSourceProxy(routingDataSource));
+        factory.setPackagesToScan("study.querydsl.config"); //엔티티 없이 네이티브 쿼리만 쓴다.
+        factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factory.setJpaPropertyMap(Map.of(AvailableSettings.STATEMENT_INSPECTOR, tracker, AvailableSettings.HBM2DDL_AUTO, "none"));
+        factory.afterPropertiesSet();
+        emf = factory.getObject();
+        em = SharedEntityManagerCreator.createSharedEntityManager(emf);
+
+        JpaTransactionManager transactionManager = new JpaTransactionManager(emf);
+        writeTx = new TransactionTemplate(transactionManager);
+        readOnlyTx = new TransactionTemplate(transactionManager);
+        readOnlyTx.setReadOnly(true);
+    }
+
+    @AfterEach
+    public void after() throws Exception {
+        emf.close();
+        routingDataSource.close();
+        primaryDb.execute("drop all objects");
+        replicaDb.execute("drop all objects");
+    }
+
+    @Test
+    public void routeByJpaTransaction() {
+        assertThat(readOnlyTx.execute(status -> node())).isEqualTo("replica");
+        assertThat(writeTx.execute(status -> node())).isEqualTo("primary");
+        assertThat(writeTx.execute(status -> readOnlyTx.execute(inner -> node()))).isEqualTo("primary");
+    }
+
+    @Test
+    public void readYourWritesAfterCommit() {
+        assertThat(readOnlyTx.execute(status -> node())).isEqualTo("replica");
+
+        writeTx.executeWithoutResult(status -> em.createNativeQuery("update node set name = name").executeUpdate());
+
+        //복제본이 아직 따라오지 못했을 수 있으니 읽기도 primary로 (캐시/ETag가 옛 데이터로 채워지지 않도록)
+        assertThat(readOnlyTx.execute(status -> node())).isEqualTo("primary");
+    }
+
+    private String node() {
+        return (String) em.createNativeQuery("select name from node").getSingleResult();
+    }
+}
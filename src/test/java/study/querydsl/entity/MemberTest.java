@@ -1,6 +1,7 @@
 package study.querydsl.entity;
 
 import jakarta.persistence.EntityManager;
+import org.hibernate.Hibernate;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -8,9 +9,12 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.repository.query.Param;
 import org.springframework.test.annotation.Commit;
 import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.support.SqlStatementCounter;
+import study.querydsl.support.SqlStatistics;
 
 import java.util.List;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
@@ -50,6 +54,40 @@ class MemberTest {
 
     }
 
+    @Test
+    public void changeTeamWithoutLoadingMembers() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        for (int i = 0; i < 50; i++) {
+            em.persist(new Member("member" + i, i, teamA));
+        }
+        Member mover = new Member("mover", 1, teamA);
+        em.persist(mover);
+        em.flush();
+        em.clear();
 
+        Team loadedTeamA = em.find(Team.class, teamA.getId()); //엔티티는 로딩, members는 아직
+        Team teamBProxy = em.getReference(Team.class, teamB.getId()); //프록시
+        Member findMover = em.find(Member.class, mover.getId());
 
-}
\ No newline at end of file
+        SqlStatistics statistics = SqlStatementCounter.measure(() -> {
+            em.persist(new Member("newcomer", 20, loadedTeamA)); //큐에 쌓일 뿐 컬렉션을 초기화하지 않는다.
+            findMover.changeTeam(teamBProxy);
+        });
+
+        //시퀀스 조회 외에는 SQL이 없어야 한다. (member, team select 없음)
+        assertThat(statistics.getShapes().keySet()).noneMatch(sql -> sql.contains(" from member") || sql.contains(" from team"));
+        assertThat(Hibernate.isInitialized(loadedTeamA.getMembers())).isFalse();
+        assertThat(Hibernate.isInitialized(teamBProxy)).isFalse();
+
+        //큐에 쌓였던 add는 컬렉션을 읽을 때 반영된다.
+        assertThat(loadedTeamA.getMembers()).extracting("username").contains("newcomer");
+
+        em.flush();
+        em.clear();
+        assertThat(em.find(Team.class, teamA.getId()).getMembers()).hasSize(51); //50 + newcomer
+        assertThat(em.find(Team.class, teamB.getId()).getMembers()).extracting("username").containsExactly("mover");
+    }
+}
@@ -0,0 +1,124 @@
+package study.querydsl.entity;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.BulkProgressListener;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 2차 캐시는 트랜잭션(영속성 컨텍스트)을 넘어서야 의미가 있으므로 테스트 전체를 하나의 트랜잭션으로 묶지 않는다.
+ * 조회마다 TransactionTemplate으로 새 트랜잭션(= 새 영속성 컨텍스트)을 연다.
+ */
+@SpringBootTest
+class SecondLevelCacheTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate tx;
+    Statistics statistics;
+    Long memberId;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        memberId = tx.execute(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            Member member1 = new Member("member1", 10, teamA);
+            em.persist(member1);
+            return member1.getId();
+        });
+        emf.getCache().evictAll();
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> {
+            queryFactory.delete(member).execute();
+            queryFactory.delete(team).execute();
+        });
+    }
+
+    @Test
+    public void hitRateTest() {
+        //1번째: DB에서 읽어서 캐시에 올린다. 2~3번째: 캐시에서 꺼낸다. (JpaRepository, 순수 JPA 리포지토리 모두 em.find)
+        tx.executeWithoutResult(status -> memberRepository.findById(memberId).orElseThrow().getTeam().getName());
+        tx.executeWithoutResult(status -> memberRepository.findById(memberId).orElseThrow().getTeam().getName());
+        tx.executeWithoutResult(status -> memberJpaRepository.findById(memberId).orElseThrow().getTeam().getName());
+
+        CacheRegionStatistics memberRegion = statistics.getDomainDataRegionStatistics("member");
+        CacheRegionStatistics teamRegion = statistics.getDomainDataRegionStatistics("team");
+        assertThat(memberRegion.getMissCount()).isEqualTo(1);
+        assertThat(memberRegion.getHitCount()).isEqualTo(2);
+        assertThat(teamRegion.getMissCount()).isEqualTo(1); //member.team 프록시 초기화도 캐시를 탄다.
+        assertThat(teamRegion.getHitCount()).isEqualTo(2);
+
+        //쿼리 캐시: 두번째부터는 SQL 없이 id 목록(쿼리 캐시) + 엔티티(member 영역)로 조립
+        tx.executeWithoutResult(status -> memberRepository.findByUsername("member1"));
+        long queries = statistics.getPrepareStatementCount();
+        tx.executeWithoutResult(status -> assertThat(memberRepository.findByUsername("member1")).hasSize(1));
+
+        assertThat(statistics.getQueryRegionStatistics("memberByUsername").getHitCount()).isEqualTo(1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(queries);
+    }
+
+    @Test
+    public void bulkExecuteInvalidationTest() {
+        tx.executeWithoutResult(status -> memberRepository.findById(memberId));
+        tx.executeWithoutResult(status -> memberRepository.findByUsername("member1"));
+
+        //벌크 update는 영속성 컨텍스트와 2차 캐시를 거치지 않는다. -> 하이버네이트가 member 영역과 member 테이블 쿼리 캐시를 무효화해야 한다.
+        tx.executeWithoutResult(status -> queryFactory
+                .update(member)
+                .set(member.age, 20)
+                .where(member.id.eq(memberId))
+                .execute());
+
+        assertThat(tx.execute(status -> memberRepository.findById(memberId).orElseThrow().getAge())).isEqualTo(20);
+        assertThat(tx.execute(status -> memberRepository.findByUsername("member1").get(0).getAge())).isEqualTo(20);
+
+        //청크 단위 벌크 연산(bulkAddAge)도 같은 경로
+        memberRepository.bulkAddAge(new MemberSearchCondition(), 1, BulkProgressListener.NONE);
+        assertThat(tx.execute(status -> memberJpaRepository.findById(memberId).orElseThrow().getAge())).isEqualTo(21);
+
+        //벌크 delete
+        tx.executeWithoutResult(status -> queryFactory.delete(member).where(member.id.eq(memberId)).execute());
+        assertThat(tx.execute(status -> memberRepository.findById(memberId))).isEmpty();
+        assertThat(tx.execute(status -> memberRepository.findByUsername("member1"))).isEmpty();
+    }
+}
@@ -91,6 +91,25 @@ class MemberJpaRepositoryTest {
     }
 
 
+    @Test
+    public void searchByTemplateTest() {
+        dataSets();
+
+        //16가지 조건 조합 모두 QueryDSL 버전(search)과 결과가 같아야 한다.
+        for (int shape = 0; shape < MemberSearchQueryTemplates.SHAPE_COUNT; shape++) {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            if ((shape & MemberSearchQueryTemplates.USERNAME) != 0) condition.setUsername("member4");
+            if ((shape & MemberSearchQueryTemplates.TEAM_NAME) != 0) condition.setTeamName("teamB");
+            if ((shape & MemberSearchQueryTemplates.AGE_GOE) != 0) condition.setAgeGoe(35);
+            if ((shape & MemberSearchQueryTemplates.AGE_LOE) != 0) condition.setAgeLoe(40);
+
+            assertThat(memberJpaRepository.searchByTemplate(condition))
+                    .as("shape=%d", shape)
+                    .containsExactlyInAnyOrderElementsOf(memberJpaRepository.search(condition));
+        }
+    }
+
+
     private void dataSets() {
         Team teamA = new Team("teamA");
         Team teamB = new Team("teamB");
@@ -1,22 +1,41 @@
 package study.querydsl.repository;
 
+import com.querydsl.jpa.impl.JPAQueryFactory;
 import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberKeysetPage;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.Team;
+import study.querydsl.support.SqlStatementCounter;
+import study.querydsl.support.SqlStatistics;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
 
-@SpringBootTest
+//커밋하는 테스트(NOT_SUPPORTED)가 있어서 공유 DB(tcp, local 프로파일 데이터)가 아니라 이 클래스 전용 메모리 DB를 쓴다.
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:member-repository-test;DB_CLOSE_DELAY=-1")
 @Transactional
 class MemberRepositoryTest {
     @Autowired
@@ -25,6 +44,28 @@ class MemberRepositoryTest {
     @Autowired
     MemberRepository memberRepository;
 
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    CacheManager cacheManager;
+
+    @Autowired
+    MemberSearchCacheResolver memberSearchCacheResolver;
+
+    @Autowired
+    MemberSearchCacheEvictor memberSearchCacheEvictor;
+
+    @Autowired
+    TeamNameDictionary teamNameDictionary;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    //dataSets()가 넣은 id. 커밋한 테스트는 이것만 지운다. (deleteInserted)
+    final List<Long> teamIds = new ArrayList<>();
+    final List<Long> memberIds = new ArrayList<>();
+
     @Test
     public void basicTest() {
         Member member = new Member("member1", 10);
@@ -54,6 +95,81 @@ class MemberRepositoryTest {
         assertThat(result).extracting("username").containsExactly("member4");
     }
 
+    @Test
+    public void searchTeamNameDictionaryTest() {
+        dataSets();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        List<MemberTeamDto> result = memberRepository.search(condition);
+
+        assertThat(result).extracting("username").containsExactly("member1", "member2");
+        assertThat(result).extracting("teamName").containsOnly("teamA"); //조인 없이 사전으로 채운 이름
+
+        condition.setTeamName("teamX");
+        assertThat(memberRepository.search(condition)).isEmpty();
+
+        //같은 트랜잭션에서 추가한 팀(아직 flush 전)도 바로 검색된다.
+        Team teamC = new Team("teamC");
+        em.persist(teamC);
+        Member member5 = new Member("member5", 50, teamC);
+        em.persist(member5);
+
+        condition.setTeamName("teamC");
+        assertThat(memberRepository.search(condition)).extracting("username").containsExactly("member5");
+    }
+
+    @Test
+    public void unknownTeamNameDoesNotReloadTest() {
+        //검색 API처럼 읽기 전용 트랜잭션에서 없는 팀 이름으로 계속 검색해도 team 테이블을 다시 읽지 않는다.
+        TransactionTemplate readOnlyTx = new TransactionTemplate(transactionManager);
+        readOnlyTx.setPropagationBehavior(TransactionTemplate.PROPAGATION_REQUIRES_NEW);
+        readOnlyTx.setReadOnly(true);
+        SqlStatistics statistics = readOnlyTx.execute(status -> {
+            teamNameDictionary.idsOf("teamX"); //스냅샷이 오래됐으면 여기서 한 번 로딩
+            return SqlStatementCounter.measure(() -> {
+                for (int i = 0; i < 10; i++) {
+                    assertThat(teamNameDictionary.idsOf("noSuchTeam" + i)).containsExactly(TeamNameDictionary.NO_TEAM_ID);
+                }
+            });
+        });
+        assertThat(statistics.getStatementCount()).isZero();
+    }
+
+    @Test
+    public void teamNameRefreshIntervalTest() {
+        //하이버네이트를 거치지 않고(다른 서버, SQL 직접) 추가된 팀은 DataChangeTracker가 모른다. refresh-interval이 지나면 보인다.
+        teamNameDictionary.idsOf("teamX"); //스냅샷이 오래됐으면 여기서 한 번 로딩
+        jdbcTemplate.update("insert into team (id, name) values (?, ?)", 900_000_001L, "plainSqlTeam");
+        assertThat(teamNameDictionary.idsOf("plainSqlTeam")).containsExactly(TeamNameDictionary.NO_TEAM_ID);
+
+        Duration refreshInterval = (Duration) ReflectionTestUtils.getField(teamNameDictionary, "refreshInterval");
+        ReflectionTestUtils.setField(teamNameDictionary, "refreshInterval", Duration.ZERO);
+        try {
+            assertThat(teamNameDictionary.idsOf("plainSqlTeam")).containsExactly(900_000_001L);
+        } finally {
+            ReflectionTestUtils.setField(teamNameDictionary, "refreshInterval", refreshInterval);
+        }
+    }
+
+    @Test
+    public void searchStatementCountTest() {
+        dataSets();
+        Team teamA = em.createQuery("select t from Team t where t.name = 'teamA'", Team.class).getSingleResult();
+        for (int i = 0; i < 20; i++) {
+            em.persist(new Member("extra" + i, i, teamA));
+        }
+        em.flush();
+        em.clear();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        List<MemberTeamDto> result = new ArrayList<>();
+        SqlStatistics statistics = SqlStatementCounter.measure(() -> result.addAll(memberRepository.search(condition)));
+
+        //팀 이름은 조인/lazy 로딩이 아니라 TeamNameDictionary로 채우므로 회원 수가 늘어도 SQL 수는 그대로다.
+        assertThat(result).hasSize(24).extracting("teamName").doesNotContainNull();
+        assertThat(statistics.getStatementCount()).as(statistics.summary()).isLessThanOrEqualTo(3);
+    }
 
     private void dataSets() {
         Team teamA = new Team("teamA");
@@ -72,6 +188,9 @@ class MemberRepositoryTest {
         em.persist(member3);
         em.persist(member4);
 
+        teamIds.addAll(List.of(teamA.getId(), teamB.getId()));
+        memberIds.addAll(List.of(member1.getId(), member2.getId(), member3.getId(), member4.getId()));
+
         em.flush();
         em.clear();
     }
@@ -115,4 +234,308 @@ class MemberRepositoryTest {
         assertThat(result.getContent()).extracting("username").containsExactly("member1", "member2", "member3", "member4");
     }
 
-}
\ No newline at end of file
+    @Test
+    public void searchPageDeferredJoinTest() {
+        dataSets();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+
+        Page<MemberTeamDto> result = memberRepository.searchPageDeferredJoin(condition, PageRequest.of(1, 2));
+
+        assertThat(result.getContent()).extracting("username").containsExactly("member4");
+        assertThat(result.getContent()).extracting("teamName").containsExactly("teamB");
+        assertThat(result.getTotalElements()).isEqualTo(3);
+    }
+
+    @Test
+    public void searchPageOffsetTooLargeTest() {
+        //page * size가 int 범위를 넘으면 잘라서 조회하지 않고 400
+        PageRequest pageRequest = PageRequest.of(Integer.MAX_VALUE / 10, 20);
+        assertThatThrownBy(() -> memberRepository.searchPageComplex(new MemberSearchCondition(), pageRequest))
+                .isInstanceOf(PageOffsetTooLargeException.class);
+    }
+
+    @Test
+    public void offsetAndDeferredJoinSamePagesTest() {
+        dataSets();
+
+        //둘 다 id 순이라 모든 페이지가 같아야 벤치마크(MemberPagingBenchmark)에서 같은 일을 비교한다.
+        MemberSearchCondition condition = new MemberSearchCondition();
+        for (int page = 0; page < 3; page++) {
+            PageRequest pageRequest = PageRequest.of(page, 2);
+            assertThat(memberRepository.searchPageDeferredJoin(condition, pageRequest).getContent())
+                    .as("page=%d", page)
+                    .isEqualTo(memberRepository.searchPageComplexWithUtils(condition, pageRequest).getContent());
+        }
+    }
+
+    @Test
+    public void searchPageCountWithoutTeamJoinTest() {
+        dataSets();
+        em.persist(new Member("member5", 50)); //팀이 없는 회원도 count에 포함되어야 한다.
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        PageRequest pageRequest = PageRequest.of(0, 2); //count 쿼리가 생략되지 않도록 페이지 사이즈를 작게
+
+        assertThat(memberRepository.searchPageComplex(condition, pageRequest).getTotalElements()).isEqualTo(5);
+        assertThat(memberRepository.searchPageComplexWithUtils(condition, pageRequest).getTotalElements()).isEqualTo(5);
+
+        condition.setTeamName("teamB");
+        PageRequest firstOfTeamB = PageRequest.of(0, 1);
+        assertThat(memberRepository.searchPageComplex(condition, firstOfTeamB).getTotalElements()).isEqualTo(2);
+        assertThat(memberRepository.searchPageComplexWithUtils(condition, firstOfTeamB).getTotalElements()).isEqualTo(2);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) //병렬 쿼리는 별도 커넥션에서 실행되므로 커밋된 데이터만 보인다.
+    public void searchPageParallelTest() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> dataSets());
+        try {
+            MemberSearchCondition condition = new MemberSearchCondition();
+
+            Page<MemberTeamDto> result = memberRepository.searchPageParallel(condition, PageRequest.of(0, 3));
+            assertThat(result.getContent()).extracting("username").containsExactly("member1", "member2", "member3");
+            assertThat(result.getTotalElements()).isEqualTo(4);
+
+            condition.setTeamName("teamB");
+            Page<MemberTeamDto> teamB = memberRepository.searchPageParallel(condition, PageRequest.of(0, 10)); //count 생략 케이스
+            assertThat(teamB.getContent()).extracting("username").containsExactly("member3", "member4");
+            assertThat(teamB.getTotalElements()).isEqualTo(2);
+        } finally {
+            deleteInserted(tx);
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) //트랜잭션 안에서 데이터를 바꾸면 캐시를 타지 않으므로 커밋된 데이터로 테스트
+    public void searchCacheTest() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> dataSets());
+        try {
+            Cache cache = cacheManager.getCache(MemberSearchCacheEvictor.CACHE_NAME);
+            com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache = (com.github.benmanes.caffeine.cache.Cache<?, ?>) cache.getNativeCache();
+            long hitsBefore = nativeCache.stats().hitCount();
+
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setTeamName("teamB");
+            assertThat(memberRepository.search(condition)).hasSize(2); //miss
+
+            MemberSearchCondition sameCondition = new MemberSearchCondition();
+            sameCondition.setTeamName("teamB");
+            sameCondition.setUsername(""); //""과 null은 같은 키
+            assertThat(memberRepository.search(sameCondition)).hasSize(2); //hit
+            assertThat(nativeCache.stats().hitCount()).isEqualTo(hitsBefore + 1);
+
+            //save -> 무효화
+            tx.executeWithoutResult(status -> {
+                Team teamB = em.createQuery("select t from Team t where t.name = :name", Team.class)
+                        .setParameter("name", "teamB")
+                        .getSingleResult();
+                memberRepository.save(new Member("member5", 50, teamB));
+            });
+            assertThat(memberRepository.search(condition)).hasSize(3);
+
+            //벌크 연산 -> 무효화
+            tx.executeWithoutResult(status -> new JPAQueryFactory(em)
+                    .delete(member)
+                    .where(member.age.goe(50), member.team.id.in(teamIds))
+                    .execute());
+            assertThat(memberRepository.search(condition)).hasSize(2);
+        } finally {
+            deleteInserted(tx);
+        }
+    }
+
+    @Test
+    public void searchCachePutAfterEvictTest() {
+        //무효화 전에 시작한 검색(miss)이 무효화 뒤에 옛 결과를 넣으면 버린다.
+        Cache cache = memberSearchCacheResolver.resolveCaches(null).iterator().next();
+        Object key = "putAfterEvict";
+
+        assertThat(cache.get(key)).isNull(); //검색 시작 (miss)
+        memberSearchCacheEvictor.onDataChange("member"); //그 사이 다른 트랜잭션이 커밋
+        cache.put(key, List.of("stale"));
+        assertThat(cache.get(key)).isNull();
+
+        cache.put(key, List.of("fresh")); //바로 앞 miss 이후로는 바뀐 게 없다.
+        assertThat(cache.get(key).get()).isEqualTo(List.of("fresh"));
+        cache.evict(key);
+    }
+
+    private void deleteInserted(TransactionTemplate tx) {
+        tx.executeWithoutResult(status -> {
+            JPAQueryFactory queryFactory = new JPAQueryFactory(em);
+            queryFactory.delete(member).where(member.id.in(memberIds).or(member.team.id.in(teamIds))).execute(); //테스트 중에 이 팀에 추가한 회원 포함
+            queryFactory.delete(team).where(team.id.in(teamIds)).execute();
+            em.createNativeQuery("delete from team_stats where team_id in (:teamIds)").setParameter("teamIds", teamIds).executeUpdate();
+        });
+    }
+
+    @Test
+    public void searchStreamTest() {
+        dataSets();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+
+        List<MemberTeamDto> rows = new ArrayList<>();
+        long count = memberRepository.searchStream(condition, rows::add);
+
+        assertThat(count).isEqualTo(3);
+        assertThat(rows).extracting("username").containsExactly("member2", "member3", "member4");
+    }
+
+    @Test
+    public void searchSliceTest() {
+        dataSets();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        Slice<MemberTeamDto> first = memberRepository.searchSlice(condition, PageRequest.of(0, 3));
+        assertThat(first.getContent()).extracting("username").containsExactly("member1", "member2", "member3");
+        assertThat(first.hasNext()).isTrue();
+
+        Slice<MemberTeamDto> last = memberRepository.searchSlice(condition, PageRequest.of(1, 3));
+        assertThat(last.getContent()).extracting("username").containsExactly("member4");
+        assertThat(last.hasNext()).isFalse();
+    }
+
+    @Test
+    public void searchKeysetTest() {
+        dataSets();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        MemberKeysetPage first = memberRepository.searchKeyset(condition, null, MemberKeysetCursor.Sort.ID, 3);
+        assertThat(first.getContent()).extracting("username").containsExactly("member1", "member2", "member3");
+        assertThat(first.isHasNext()).isTrue();
+
+        MemberKeysetPage second = memberRepository.searchKeyset(condition, first.getNextCursor(), MemberKeysetCursor.Sort.ID, 3);
+        assertThat(second.getContent()).extracting("username").containsExactly("member4");
+        assertThat(second.isHasNext()).isFalse();
+        assertThat(second.getNextCursor()).isNull();
+    }
+
+    @Test
+    public void searchKeysetByAgeTest() {
+        dataSets();
+        em.persist(new Member("member5", 20)); //같은 나이는 id로 순서가 정해진다.
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+
+        MemberKeysetPage first = memberRepository.searchKeyset(condition, null, MemberKeysetCursor.Sort.AGE, 2);
+        assertThat(first.getContent()).extracting("username").containsExactly("member2", "member5");
+
+        MemberKeysetPage second = memberRepository.searchKeyset(condition, first.getNextCursor(), MemberKeysetCursor.Sort.AGE, 2);
+        assertThat(second.getContent()).extracting("username").containsExactly("member3", "member4");
+        assertThat(second.isHasNext()).isFalse();
+    }
+
+    @Test
+    public void searchKeysetInvalidCursorTest() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        String idCursor = new MemberKeysetCursor(MemberKeysetCursor.Sort.ID, null, 1L).encode();
+
+        assertThatThrownBy(() -> memberRepository.searchKeyset(condition, idCursor, MemberKeysetCursor.Sort.AGE, 3))
+                .isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> memberRepository.searchKeyset(condition, "not-a-cursor", MemberKeysetCursor.Sort.ID, 3))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+
+    @Test
+    public void searchKeysetInvalidSizeTest() {
+        dataSets();
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        assertThatThrownBy(() -> memberRepository.searchKeyset(condition, null, MemberKeysetCursor.Sort.ID, 0))
+                .isInstanceOf(InvalidPageSizeException.class);
+        assertThatThrownBy(() -> memberRepository.searchKeyset(condition, null, MemberKeysetCursor.Sort.ID, Integer.MAX_VALUE))
+                .isInstanceOf(InvalidPageSizeException.class);
+        assertThatThrownBy(() -> memberRepository.searchKeyset(condition, null, MemberKeysetCursor.Sort.ID, 2001))
+                .isInstanceOf(InvalidPageSizeException.class);
+        assertThat(memberRepository.searchKeyset(condition, null, MemberKeysetCursor.Sort.ID, 1).getContent()).hasSize(1);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) //청크마다 커밋하므로 트랜잭션 밖에서 호출해야 한다.
+    public void bulkAddAgeTest() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> dataSets());
+        try {
+            List<Long> lastIds = new ArrayList<>();
+
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setTeamName("teamB");
+            long count = memberRepository.bulkAddAge(condition, 1, (chunkRows, totalRows, lastId, maxId) -> lastIds.add(lastId));
+
+            assertThat(count).isEqualTo(2);
+            assertThat(lastIds).isNotEmpty().isSorted();
+            assertThat(memberRepository.findAll()).extracting("age").containsExactlyInAnyOrder(10, 20, 31, 41);
+        } finally {
+            deleteInserted(tx);
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void bulkChangeTeamAndDeleteTest() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> dataSets());
+        try {
+            Long teamBId = memberRepository.findByUsername("member4").get(0).getTeam().getId();
+
+            MemberSearchCondition teamA = new MemberSearchCondition();
+            teamA.setTeamName("teamA");
+            assertThat(memberRepository.bulkChangeTeam(teamA, teamBId, BulkProgressListener.NONE)).isEqualTo(2);
+            assertThat(memberRepository.search(teamA)).isEmpty();
+
+            List<long[]> progress = new ArrayList<>();
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setAgeGoe(20);
+            long count = memberRepository.bulkDelete(condition, (chunkRows, totalRows, lastId, maxId) -> progress.add(new long[]{totalRows, lastId, maxId}));
+
+            assertThat(count).isEqualTo(3);
+            assertThat(progress).hasSizeGreaterThan(1); //청크 크기 2 (test application.yml)
+            long[] last = progress.get(progress.size() - 1);
+            assertThat(last[0]).isEqualTo(3);
+            assertThat(last[1]).isEqualTo(last[2]);
+            assertThat(memberRepository.findAll()).extracting("username").containsExactly("member1");
+        } finally {
+            deleteInserted(tx);
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void bulkCommitsPerChunkTest() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> dataSets());
+        try {
+            List<Long> visible = new ArrayList<>();
+            MemberSearchCondition condition = new MemberSearchCondition();
+
+            //첫 청크가 끝난 뒤 실패 -> 첫 청크는 이미 커밋되어 다른 트랜잭션에서 보이고, 실패 후에도 남아 있어야 한다.
+            assertThatThrownBy(() -> memberRepository.bulkAddAge(condition, 100, (chunkRows, totalRows, lastId, maxId) -> {
+                visible.add(tx.execute(status -> em.createQuery("select count(m) from Member m where m.age > 100", Long.class).getSingleResult()));
+                visible.add(totalRows);
+                throw new IllegalStateException("stop after first chunk");
+            })).hasMessage("stop after first chunk");
+
+            assertThat(visible.get(0)).isPositive().isEqualTo(visible.get(1));
+            assertThat(tx.execute(status -> em.createQuery("select count(m) from Member m where m.age > 100", Long.class).getSingleResult()))
+                    .isEqualTo(visible.get(1));
+        } finally {
+            deleteInserted(tx);
+        }
+    }
+
+    @Test
+    public void bulkInsideTransactionTest() {
+        //바깥 트랜잭션에 참여하면 청크 커밋이 없어져서 전체 범위를 한 트랜잭션이 잠근다.
+        assertThatThrownBy(() -> memberRepository.bulkAddAge(new MemberSearchCondition(), 1, BulkProgressListener.NONE))
+                .isInstanceOf(IllegalTransactionStateException.class);
+    }
+}
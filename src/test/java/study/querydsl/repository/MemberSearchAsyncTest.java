@@ -0,0 +1,141 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 비동기 검색은 다른 스레드(다른 트랜잭션)에서 돌기 때문에 테스트 데이터를 커밋해야 보인다. (클래스 전체 @Transactional 없음)
+ */
+@SpringBootTest
+class MemberSearchAsyncTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("asyncTeamA");
+            Team teamB = new Team("asyncTeamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            for (int i = 0; i < 10; i++) {
+                em.persist(new Member("async" + i, i * 10, i % 2 == 0 ? teamA : teamB));
+            }
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> {
+            queryFactory.delete(member).where(member.username.startsWith("async")).execute();
+            queryFactory.delete(team).where(team.name.startsWith("asyncTeam")).execute();
+        });
+    }
+
+    @Test
+    public void searchPageAsyncTest() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("asyncTeamA");
+        PageRequest pageRequest = PageRequest.of(0, 3);
+
+        Page<MemberTeamDto> complex = memberRepository.searchPageComplexAsync(condition, pageRequest).get(5, TimeUnit.SECONDS);
+        Page<MemberTeamDto> withUtils = memberRepository.searchPageComplexWithUtilsAsync(condition, pageRequest).get(5, TimeUnit.SECONDS);
+        Page<MemberTeamDto> deferred = memberRepository.searchPageDeferredJoinAsync(condition, pageRequest).get(5, TimeUnit.SECONDS);
+
+        assertThat(complex.getTotalElements()).isEqualTo(5);
+        assertThat(complex.getContent()).extracting("username").containsExactly("async0", "async2", "async4");
+        assertThat(complex.getContent()).extracting("teamName").containsOnly("asyncTeamA");
+        assertThat(withUtils.getContent()).isEqualTo(complex.getContent());
+        assertThat(deferred.getContent()).isEqualTo(complex.getContent());
+    }
+
+    @Test
+    public void rejectWhenFullTest() throws Exception {
+        MemberSearchAsyncExecutor executor = new MemberSearchAsyncExecutor(1, 1, Duration.ofSeconds(5), transactionManager, new SimpleMeterRegistry());
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            CompletableFuture<Boolean> running = executor.submit(() -> await(release)); //스레드 1개를 잡고
+            CompletableFuture<Boolean> queued = executor.submit(() -> await(release));  //큐 1칸을 채우면
+
+            assertThatThrownBy(() -> executor.submit(() -> true)) //기다리지 않고 바로 거절
+                    .isInstanceOf(MemberSearchBusyException.class);
+
+            release.countDown();
+            assertThat(running.get(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(queued.get(5, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void timeoutTest() throws Exception {
+        MemberSearchAsyncExecutor executor = new MemberSearchAsyncExecutor(1, 1, Duration.ofMillis(200), transactionManager, new SimpleMeterRegistry());
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean queuedRan = new AtomicBoolean();
+        try {
+            CompletableFuture<Boolean> running = executor.submit(() -> await(release));
+            CompletableFuture<Boolean> queued = executor.submit(() -> queuedRan.getAndSet(true));
+
+            //10분짜리 기본 비동기 타임아웃이 아니라 executor 타임아웃에 끝난다.
+            assertThatThrownBy(() -> running.get(2, TimeUnit.SECONDS)).hasCauseInstanceOf(TimeoutException.class);
+            assertThatThrownBy(() -> queued.get(2, TimeUnit.SECONDS)).hasCauseInstanceOf(TimeoutException.class);
+            assertThat(MemberSearchAsyncExecutor.isTimeout(new CompletionException(new TimeoutException()))).isTrue();
+
+            release.countDown();
+            Thread.sleep(300);
+            assertThat(queuedRan).isFalse(); //타임아웃 난 작업은 큐에서 빠졌다.
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.QMember;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 별도 EntityManager(별도 커넥션)에서 실행되므로 테스트 데이터를 커밋한다. (클래스 전체 @Transactional 없음)
+ */
+@SpringBootTest
+class ReadOnlyQueryExecutorTest {
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate tx;
+    ReadOnlyQueryExecutor executor;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            for (int i = 0; i < 50; i++) {
+                em.persist(new Member("readOnly" + i, i));
+            }
+        });
+        executor = new ReadOnlyQueryExecutor(emf, 1, 1, Duration.ofSeconds(30), false);
+    }
+
+    @AfterEach
+    public void after() {
+        executor.shutdown();
+        tx.executeWithoutResult(status -> queryFactory.delete(member).where(member.username.startsWith("readOnly")).execute());
+    }
+
+    @Test
+    public void cancelRunningQueryTest() throws Exception {
+        //50^5 건 cross join -> 취소하지 않으면 스레드(1개)와 커넥션을 한참 잡고 있다.
+        QMember m1 = new QMember("m1");
+        QMember m2 = new QMember("m2");
+        QMember m3 = new QMember("m3");
+        QMember m4 = new QMember("m4");
+        QMember m5 = new QMember("m5");
+        Future<Integer> slow = executor.submit(factory -> factory
+                .select(m1.age.sum())
+                .from(m1, m2, m3, m4, m5)
+                .where(m1.username.startsWith("readOnly"), m2.username.startsWith("readOnly"), m3.username.startsWith("readOnly"),
+                        m4.username.startsWith("readOnly"), m5.username.startsWith("readOnly"))
+                .fetchOne());
+        Thread.sleep(300); //쿼리가 DB에서 실행될 때까지
+
+        assertThat(slow.cancel(true)).isTrue();
+        assertThatThrownBy(slow::get).isInstanceOf(CancellationException.class);
+
+        //DB 쿼리까지 취소되어야 하나뿐인 스레드가 바로 풀려서 다음 쿼리가 돈다.
+        Future<Long> next = executor.submit(factory -> factory.select(member.count()).from(member).where(member.username.startsWith("readOnly")).fetchOne());
+        assertThat(next.get(5, TimeUnit.SECONDS)).isEqualTo(50);
+    }
+
+    @Test
+    public void rejectWhenFullTest() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Future<Boolean> running = executor.submit(factory -> await(release)); //스레드 1개를 잡고
+        Future<Boolean> queued = executor.submit(factory -> await(release));  //큐 1칸을 채우면
+
+        assertThatThrownBy(() -> executor.submit(factory -> true)) //RejectedExecutionException(500)이 아니라 503
+                .isInstanceOf(MemberSearchBusyException.class);
+
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package study.querydsl.repository;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.TeamRosterDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.support.SqlStatementCounter;
+import study.querydsl.support.SqlStatistics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class TeamRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @BeforeEach
+    public void before() {
+        for (int t = 0; t < 30; t++) {
+            Team team = new Team("team" + t);
+            em.persist(team);
+            for (int m = 0; m < 3; m++) {
+                em.persist(new Member("member" + t + "-" + m, m, team));
+            }
+        }
+        em.persist(new Team("emptyTeam"));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void searchRosterTest() {
+        Page<TeamRosterDto> result = teamRepository.searchRoster(PageRequest.of(0, 2), 10);
+
+        assertThat(result.getTotalElements()).isEqualTo(31);
+        assertThat(result.getContent()).extracting("teamName").containsExactly("team0", "team1");
+        assertThat(result.getContent().get(0).getMembers()).extracting("username")
+                .containsExactly("member0-0", "member0-1", "member0-2");
+        assertThat(result.getContent().get(0).getMembers()).extracting("teamName").containsOnly("team0");
+        assertThat(result.getContent().get(0).isMembersTruncated()).isFalse();
+
+        Page<TeamRosterDto> last = teamRepository.searchRoster(PageRequest.of(3, 10), 10);
+        assertThat(last.getContent()).extracting("teamName").containsExactly("emptyTeam");
+        assertThat(last.getContent().get(0).getMembers()).isEmpty();
+    }
+
+    @Test
+    public void searchRosterMembersPerTeamTest() {
+        //팀마다 id 순으로 앞의 2명만, 잘렸다는 표시와 함께
+        Page<TeamRosterDto> result = teamRepository.searchRoster(PageRequest.of(0, 3), 2);
+
+        assertThat(result.getContent()).allSatisfy(roster -> {
+            assertThat(roster.getMembers()).hasSize(2);
+            assertThat(roster.isMembersTruncated()).isTrue();
+        });
+        assertThat(result.getContent().get(1).getMembers()).extracting("username").containsExactly("member1-0", "member1-1");
+
+        assertThat(teamRepository.searchRoster(PageRequest.of(0, 3), 3).getContent())
+                .allSatisfy(roster -> assertThat(roster.isMembersTruncated()).isFalse());
+    }
+
+    @Test
+    public void searchRosterStatementCountTest() {
+        //페이지 크기가 달라도 쿼리 수는 같다. (팀 + 회원 + count)
+        SqlStatistics small = SqlStatementCounter.measure(() -> teamRepository.searchRoster(PageRequest.of(0, 5), 10));
+        em.clear();
+        SqlStatistics large = SqlStatementCounter.measure(() -> teamRepository.searchRoster(PageRequest.of(0, 25), 10));
+
+        assertThat(small.getStatementCount()).as(small.summary()).isEqualTo(3);
+        assertThat(large.getStatementCount()).as(large.summary()).isEqualTo(3);
+    }
+
+    @Test
+    public void entityBatchFetchTest() {
+        //엔티티로 조회해도 Team.members의 @BatchSize 덕분에 팀마다 select 하지 않는다.
+        List<Integer> sizes = new ArrayList<>();
+        SqlStatistics statistics = SqlStatementCounter.measure(() -> teamRepository.findAll(PageRequest.of(0, 25))
+                .forEach(team -> sizes.add(team.getMembers().size())));
+
+        assertThat(sizes).hasSize(25).containsOnly(3);
+        assertThat(statistics.getStatementCount()).as(statistics.summary()).isEqualTo(3); //팀 + count + members (in 25개)
+    }
+}
@@ -0,0 +1,244 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.TeamStatsDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+@SpringBootTest
+@Transactional
+class TeamStatsTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    TeamStatsMaintainer teamStatsMaintainer;
+
+    Team teamA;
+    Team teamB;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager); //테스트 트랜잭션이 있으면 참여, 없으면(bulkTest) 커밋
+        teamA = new Team("statsA");
+        teamB = new Team("statsB");
+        tx.executeWithoutResult(status -> {
+            em.persist(teamA);
+            em.persist(teamB);
+            em.persist(new Team("statsEmpty"));
+
+            em.persist(new Member("stats1", 10, teamA));
+            em.persist(new Member("stats2", 20, teamA));
+            em.persist(new Member("stats3", 30, teamB));
+            em.persist(new Member("stats4", 40, teamB));
+        });
+    }
+
+    @Test
+    public void insertTest() {
+        TeamStatsDto a = stats("statsA");
+        assertThat(a.getMemberCount()).isEqualTo(2);
+        assertThat(a.getAvgAge()).isEqualTo(15);
+        assertThat(a.getMinAge()).isEqualTo(10);
+        assertThat(a.getMaxAge()).isEqualTo(20);
+
+        TeamStatsDto empty = stats("statsEmpty");
+        assertThat(empty.getMemberCount()).isZero();
+        assertThat(empty.getAvgAge()).isNull();
+        assertThat(empty.getMinAge()).isNull();
+
+        assertSameAsGroupBy();
+    }
+
+    @Test
+    public void updateAndDeleteTest() {
+        Member stats1 = memberRepository.findByUsername("stats1").get(0);
+        Member stats3 = memberRepository.findByUsername("stats3").get(0);
+        Member stats4 = memberRepository.findByUsername("stats4").get(0);
+
+        stats1.setAge(50);          //teamA 최소값이 빠진다 -> 재계산
+        stats3.changeTeam(teamA);   //teamB -> teamA
+        em.remove(stats4);          //teamB 최대값 삭제 -> 재계산
+
+        TeamStatsDto a = stats("statsA");
+        assertThat(a.getMemberCount()).isEqualTo(3);
+        assertThat(a.getMinAge()).isEqualTo(20);
+        assertThat(a.getMaxAge()).isEqualTo(50);
+        assertThat(a.getAvgAge()).isEqualTo(100 / 3.0);
+
+        TeamStatsDto b = stats("statsB");
+        assertThat(b.getMemberCount()).isZero();
+        assertThat(b.getMaxAge()).isNull();
+
+        assertSameAsGroupBy();
+    }
+
+    @Test
+    public void recomputeWithPendingChangesTest() {
+        //flush로 insert는 나갔지만 변화량은 아직 반영 전. 재계산이 센 행에 커밋 때 또 더해지면 안 된다.
+        em.persist(new Member("stats5", 50, teamA));
+        em.flush();
+        teamStatsMaintainer.recompute(em, List.of(teamA.getId()));
+
+        TeamStatsDto a = stats("statsA");
+        assertThat(a.getMemberCount()).isEqualTo(3);
+        assertThat(a.getMaxAge()).isEqualTo(50);
+        assertSameAsGroupBy();
+    }
+
+    @Test
+    public void teamDeleteTest() {
+        em.flush();
+        Team empty = queryFactory.selectFrom(team).where(team.name.eq("statsEmpty")).fetchOne();
+        em.remove(empty);
+        em.flush();
+
+        assertThat(teamRepository.searchStats()).extracting("teamName").doesNotContain("statsEmpty");
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) //벌크 연산은 청크마다 커밋하므로 트랜잭션 밖에서 호출해야 한다.
+    public void bulkTest() {
+        try {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setTeamName("statsA");
+            memberRepository.bulkAddAge(condition, 5, BulkProgressListener.NONE);
+
+            TeamStatsDto a = tx.execute(status -> stats("statsA"));
+            assertThat(a.getMinAge()).isEqualTo(15);
+            assertThat(a.getMaxAge()).isEqualTo(25);
+
+            memberRepository.bulkChangeTeam(condition, teamB.getId(), BulkProgressListener.NONE);
+            assertThat(tx.execute(status -> stats("statsA")).getMemberCount()).isZero();
+            assertThat(tx.execute(status -> stats("statsB")).getMemberCount()).isEqualTo(4);
+
+            condition.setTeamName("statsB");
+            condition.setAgeGoe(30);
+            memberRepository.bulkDelete(condition, BulkProgressListener.NONE);
+
+            TeamStatsDto b = tx.execute(status -> stats("statsB"));
+            assertThat(b.getMemberCount()).isEqualTo(2);
+            assertThat(b.getMaxAge()).isEqualTo(25);
+
+            tx.executeWithoutResult(status -> assertSameAsGroupBy());
+        } finally {
+            deleteCommitted();
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) //트랜잭션 두 개가 동시에 같은 팀을 다시 계산
+    public void concurrentRecomputeTest() throws Exception {
+        Long teamId = teamA.getId();
+        CountDownLatch firstRecomputed = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> first = pool.submit(() -> tx.executeWithoutResult(status -> {
+                teamStatsMaintainer.recompute(em, List.of(teamId));
+                firstRecomputed.countDown();
+                sleep(300); //두 번째 트랜잭션이 같은 팀을 건드리는 동안 커밋하지 않고 버틴다.
+            }));
+            Future<?> second = pool.submit(() -> {
+                firstRecomputed.await(5, TimeUnit.SECONDS);
+                tx.executeWithoutResult(status -> {
+                    em.persist(new Member("stats5", 50, em.getReference(Team.class, teamId))); //커밋 때 증분 반영
+                    teamStatsMaintainer.recompute(em, List.of(teamId)); //첫 트랜잭션이 끝날 때까지 기다린다. (PK 충돌 X)
+                });
+                return null;
+            });
+            first.get(10, TimeUnit.SECONDS);
+            second.get(10, TimeUnit.SECONDS);
+
+            tx.executeWithoutResult(status -> {
+                TeamStatsDto a = stats("statsA");
+                assertThat(a.getMemberCount()).isEqualTo(3);
+                assertThat(a.getMaxAge()).isEqualTo(50);
+                assertSameAsGroupBy();
+            });
+        } finally {
+            pool.shutdownNow();
+            deleteCommitted();
+        }
+    }
+
+    private void deleteCommitted() {
+        tx.executeWithoutResult(status -> {
+            List<Long> teamIds = queryFactory.select(team.id).from(team).where(team.name.startsWith("stats")).fetch();
+            queryFactory.delete(member).where(member.username.startsWith("stats")).execute();
+            queryFactory.delete(team).where(team.id.in(teamIds)).execute();
+            em.createNativeQuery("delete from team_stats where team_id in (:teamIds)").setParameter("teamIds", teamIds).executeUpdate();
+        });
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private TeamStatsDto stats(String teamName) {
+        return teamRepository.searchStats().stream()
+                .filter(s -> s.getTeamName().equals(teamName))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    //member group by 집계와 같아야 한다.
+    private void assertSameAsGroupBy() {
+        em.flush();
+        List<Tuple> expected = queryFactory
+                .select(team.id, member.count(), member.age.min(), member.age.max())
+                .from(team)
+                .leftJoin(team.members, member)
+                .groupBy(team.id)
+                .fetch();
+
+        List<TeamStatsDto> stats = teamRepository.searchStats();
+        assertThat(stats).hasSize(expected.size());
+        for (Tuple tuple : expected) {
+            TeamStatsDto dto = stats.stream().filter(s -> s.getTeamId().equals(tuple.get(team.id))).findFirst().orElseThrow();
+            assertThat(dto.getMemberCount()).isEqualTo(tuple.get(member.count()));
+            assertThat(dto.getMinAge()).isEqualTo(tuple.get(member.age.min()));
+            assertThat(dto.getMaxAge()).isEqualTo(tuple.get(member.age.max()));
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package study.querydsl.service;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberBulkLoadResult;
+import study.querydsl.dto.MemberRow;
+import study.querydsl.entity.Team;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberBulkLoaderTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberBulkLoader memberBulkLoader;
+
+    @Test
+    public void loadTest() {
+        em.persist(new Team("teamA")); //이미 있는 팀은 새로 만들지 않는다.
+
+        List<MemberRow> rows = IntStream.range(0, 2500) //청크(1000건) 경계를 넘도록
+                .mapToObj(i -> new MemberRow("member" + i, i % 100, i % 3 == 0 ? null : (i % 3 == 1 ? "teamA" : "teamB")))
+                .toList();
+
+        MemberBulkLoadResult result = memberBulkLoader.load(rows);
+
+        assertThat(result.getRows()).isEqualTo(2500);
+        assertThat(result.getCreatedTeams()).isEqualTo(1);
+        assertThat(result.getRowsPerSecond()).isPositive();
+
+        List<Object[]> counts = em.createQuery(
+                        "select t.name, count(m) from Member m left join m.team t group by t.name order by t.name", Object[].class)
+                .getResultList();
+        assertThat(counts).extracting(row -> row[0] + "=" + row[1])
+                .containsExactly("null=834", "teamA=833", "teamB=833");
+    }
+}
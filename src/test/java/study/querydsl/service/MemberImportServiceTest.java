@@ -0,0 +1,90 @@
+package study.querydsl.service;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberImportResult;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberImportServiceTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberImportService memberImportService;
+
+    @Test
+    public void importCsvTest() {
+        String csv = "username,age,teamName\n" +
+                "member1,10,teamA\n" +
+                "\n" +
+                "member2,20,\n" +
+                "member3,30,teamA\n";
+
+        MemberImportResult result = memberImportService.importMembers(stream(csv), MemberImportFormat.CSV, 1); //member1은 이미 들어갔다고 가정
+
+        assertThat(result.isCompleted()).isTrue();
+        assertThat(result.getImportedRows()).isEqualTo(2);
+        assertThat(result.getResumeFrom()).isEqualTo(3);
+        assertThat(em.createQuery("select m.username from Member m order by m.username", String.class).getResultList())
+                .containsExactly("member2", "member3");
+    }
+
+    @Test
+    public void importCsvWithoutHeaderTest() {
+        //username으로 시작하는 데이터 첫 줄은 헤더가 아니다.
+        String csv = "username1,20,teamA\n" +
+                "username2,30\n";
+
+        MemberImportResult result = memberImportService.importMembers(stream(csv), MemberImportFormat.CSV, 0);
+
+        assertThat(result.isCompleted()).isTrue();
+        assertThat(result.getImportedRows()).isEqualTo(2);
+        assertThat(em.createQuery("select m.username from Member m order by m.username", String.class).getResultList())
+                .containsExactly("username1", "username2");
+    }
+
+    @Test
+    public void importNdjsonTest() {
+        String ndjson = "{\"username\":\"member1\",\"age\":10,\"teamName\":\"teamA\"}\n" +
+                "{\"username\":\"member2\",\"age\":20}\n";
+
+        MemberImportResult result = memberImportService.importMembers(stream(ndjson), MemberImportFormat.NDJSON, 0);
+
+        assertThat(result.isCompleted()).isTrue();
+        assertThat(result.getImportedRows()).isEqualTo(2);
+        assertThat(em.createQuery("select count(m) from Member m where m.team is null", Long.class).getSingleResult())
+                .isEqualTo(1);
+    }
+
+    @Test
+    public void importBadRecordTest() {
+        //청크(1000건) 하나가 커밋된 뒤 1500번째 줄에서 실패
+        String csv = IntStream.rangeClosed(1, 2000)
+                .mapToObj(i -> i == 1500 ? "member" + i + ",notANumber" : "member" + i + "," + (i % 100))
+                .collect(Collectors.joining("\n"));
+
+        MemberImportResult result = memberImportService.importMembers(stream(csv), MemberImportFormat.CSV, 0);
+
+        assertThat(result.isCompleted()).isFalse();
+        assertThat(result.isBadInput()).isTrue();
+        assertThat(result.getImportedRows()).isEqualTo(1000);
+        assertThat(result.getResumeFrom()).isEqualTo(1000);
+        assertThat(result.getError()).contains("record 1500");
+    }
+
+    private static ByteArrayInputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
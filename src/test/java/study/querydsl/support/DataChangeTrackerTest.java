@@ -0,0 +1,24 @@
+package study.querydsl.support;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DataChangeTrackerTest {
+
+    @Test
+    public void modifiedTable() {
+        assertThat(DataChangeTracker.modifiedTable("insert into member (age,team_id,username,member_id) values (?,?,?,?)")).isEqualTo("member");
+        assertThat(DataChangeTracker.modifiedTable("update member set age=?,team_id=?,username=? where member_id=?")).isEqualTo("member");
+        assertThat(DataChangeTracker.modifiedTable("update member m1_0 set age=(m1_0.age+1)")).isEqualTo("member"); //벌크 연산
+        assertThat(DataChangeTracker.modifiedTable("delete from team where id=?")).isEqualTo("team");
+        assertThat(DataChangeTracker.modifiedTable("/* insert for study.querydsl.entity.Team */insert into team (name,id) values (?,?)")).isEqualTo("team"); //use_sql_comments
+        assertThat(DataChangeTracker.modifiedTable("  merge into \"PUBLIC\".\"TEAM\"(id) key(id) values (?)")).isEqualTo("team");
+    }
+
+    @Test
+    public void selectIsNotAChange() {
+        assertThat(DataChangeTracker.modifiedTable("select m1_0.member_id from member m1_0")).isNull();
+        assertThat(DataChangeTracker.modifiedTable("/* select m from Member m */ select m1_0.member_id from member m1_0")).isNull();
+    }
+}
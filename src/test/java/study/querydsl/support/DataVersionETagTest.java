@@ -0,0 +1,125 @@
+package study.querydsl.support;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.BulkProgressListener;
+import study.querydsl.repository.MemberRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 버전은 트랜잭션이 끝날 때 다시 올라가므로 테스트 데이터를 커밋한다. (클래스 전체 @Transactional 없음)
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class DataVersionETagTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate tx;
+    Team etagTeam;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        etagTeam = new Team("etagTeam");
+        tx.executeWithoutResult(status -> {
+            em.persist(etagTeam);
+            em.persist(new Member("etag1", 10, etagTeam));
+            em.persist(new Member("etag2", 20, etagTeam));
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> {
+            queryFactory.delete(member).where(member.username.startsWith("etag")).execute();
+            queryFactory.delete(team).where(team.name.eq("etagTeam")).execute();
+        });
+    }
+
+    @Test
+    public void notModifiedWithoutQuery() throws Exception {
+        String etag = etag();
+
+        SqlStatistics statistics = SqlStatementCounter.begin();
+        try {
+            mockMvc.perform(get("/v2/members").param("teamName", "etagTeam").header(HttpHeaders.IF_NONE_MATCH, etag))
+                    .andExpect(status().isNotModified())
+                    .andExpect(header().string(HttpHeaders.ETAG, etag));
+        } finally {
+            SqlStatementCounter.end();
+        }
+        assertThat(statistics.getStatementCount()).isZero();
+    }
+
+    @Test
+    public void saveChangesETag() throws Exception {
+        String before = etag();
+
+        tx.executeWithoutResult(status -> memberRepository.save(new Member("etag3", 30, em.find(Team.class, etagTeam.getId()))));
+
+        String after = etag();
+        assertThat(after).isNotEqualTo(before);
+        mockMvc.perform(get("/v2/members").param("teamName", "etagTeam").header(HttpHeaders.IF_NONE_MATCH, before))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void bulkUpdateChangesETag() throws Exception {
+        String before = etag();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("etagTeam");
+        memberRepository.bulkAddAge(condition, 1, BulkProgressListener.NONE); //queryFactory.update(..).execute()
+
+        assertThat(etag()).isNotEqualTo(before);
+    }
+
+    @Test
+    public void otherTableDoesNotChangeETag() throws Exception {
+        String before = etag();
+
+        tx.executeWithoutResult(status -> em.createNativeQuery("update team_stats set member_count = member_count where 1 = 0").executeUpdate());
+
+        assertThat(etag()).isEqualTo(before);
+    }
+
+    private String etag() throws Exception {
+        return mockMvc.perform(get("/v2/members").param("teamName", "etagTeam"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+}
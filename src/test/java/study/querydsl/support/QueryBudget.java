@@ -0,0 +1,34 @@
+package study.querydsl.support;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 테스트 메소드 본문(@BeforeEach 제외)에서 실행되는 SQL 수 제한. 넘으면 테스트 실패
+ *
+ * ex) @QueryBudget(1) - 회원 + 팀 조회가 쿼리 1번으로 끝나야 한다. (lazy 로딩으로 N+1이 생기면 실패)
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(QueryBudgetExtension.class)
+public @interface QueryBudget {
+
+    /**
+     * 허용하는 최대 SQL 수
+     */
+    int value();
+
+    /**
+     * 같은 모양의 SQL을 허용하는 최대 반복 횟수
+     */
+    int maxRepeat() default Integer.MAX_VALUE;
+
+    /**
+     * true면 초과하는 SQL이 실행되는 그 자리에서 예외를 던진다. (스택트레이스로 어디서 N+1이 나는지 바로 보인다)
+     */
+    boolean failFast() default false;
+}
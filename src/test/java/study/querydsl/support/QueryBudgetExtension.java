@@ -0,0 +1,41 @@
+package study.querydsl.support;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.platform.commons.support.AnnotationSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @QueryBudget 처리. @BeforeEach(테스트 데이터 준비)가 끝난 뒤부터 테스트 메소드가 끝날 때까지만 센다.
+ */
+class QueryBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        QueryBudget budget = budgetOf(context);
+        SqlStatementCounter.begin(budget.failFast() ? budget.value() : 0);
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        SqlStatistics statistics = SqlStatementCounter.end();
+        if (context.getExecutionException().isPresent()) {
+            return; //이미 실패한 테스트 (failFast 포함)
+        }
+        QueryBudget budget = budgetOf(context);
+        assertThat(statistics.getStatementCount())
+                .as("SQL statements: %s", statistics.summary())
+                .isLessThanOrEqualTo(budget.value());
+        assertThat(statistics.getMaxRepeat())
+                .as("repeated SQL (N+1?): %s", statistics.summary())
+                .isLessThanOrEqualTo(budget.maxRepeat());
+    }
+
+    private static QueryBudget budgetOf(ExtensionContext context) {
+        return AnnotationSupport.findAnnotation(context.getRequiredTestMethod(), QueryBudget.class)
+                .or(() -> AnnotationSupport.findAnnotation(context.getRequiredTestClass(), QueryBudget.class))
+                .orElseThrow();
+    }
+}
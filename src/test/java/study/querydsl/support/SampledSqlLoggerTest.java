@@ -0,0 +1,63 @@
+package study.querydsl.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SampledSqlLoggerTest {
+
+    @Test
+    public void slowAndSampledTest() throws Exception {
+        List<String> lines = new CopyOnWriteArrayList<>();
+        SampledSqlLogger logger = new SampledSqlLogger(true, 0, Duration.ofMillis(100), 100, lines::add);
+
+        logger.onAfterAnyExecute(null, Duration.ofMillis(1).toNanos(), null); //빠르고 샘플링 안 됨 -> StatementInformation도 보지 않는다.
+        logger.record("select\n  *  from member", Duration.ofMillis(150).toNanos(), true, null);
+        logger.shutdown();
+
+        assertThat(lines).hasSize(1);
+        assertThat(lines.get(0)).contains("SLOW", "150.0ms", "| select * from member");
+    }
+
+    @Test
+    public void disabledTest() throws Exception {
+        List<String> lines = new CopyOnWriteArrayList<>();
+        SampledSqlLogger logger = new SampledSqlLogger(false, 1, Duration.ZERO, 100, lines::add);
+
+        logger.onAfterAnyExecute(null, Duration.ofSeconds(1).toNanos(), null);
+        logger.configure(true, null, null); //런타임에 켠다.
+        logger.record("select 1", 10, false, null);
+        logger.shutdown();
+
+        assertThat(lines).hasSize(1);
+        assertThat(logger.getSampleRate()).isEqualTo(1);
+    }
+
+    @Test
+    public void dropWhenFullTest() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> lines = new CopyOnWriteArrayList<>();
+        SampledSqlLogger logger = new SampledSqlLogger(true, 1, Duration.ZERO, 2, line -> {
+            try {
+                release.await(); //writer를 막아서 버퍼가 차게 만든다.
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            lines.add(line);
+        });
+
+        for (int i = 0; i < 10; i++) {
+            logger.record("select " + i, 10, false, null); //요청 스레드는 막히지 않는다.
+        }
+        assertThat(logger.getDropped()).isGreaterThanOrEqualTo(7); //writer가 1건 쥐고 있고 버퍼 2건
+
+        release.countDown();
+        logger.shutdown();
+        assertThat(lines.size() + logger.getDropped()).isEqualTo(10);
+    }
+}
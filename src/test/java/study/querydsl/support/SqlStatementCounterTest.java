@@ -0,0 +1,65 @@
+package study.querydsl.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SqlStatementCounterTest {
+
+    @Test
+    public void shapeOfTest() {
+        assertThat(SqlStatementCounter.shapeOf("/* select m from Member m */ select\n    m.member_id \nfrom member m where m.team_id in (?, ?,?)"))
+                .isEqualTo("select m.member_id from member m where m.team_id in (?)");
+        assertThat(SqlStatementCounter.shapeOf("select * from team where team_id in (?)"))
+                .isEqualTo("select * from team where team_id in (?)");
+    }
+
+    @Test
+    public void nestedAndFailFastTest() {
+        SqlStatistics outer = SqlStatementCounter.begin();
+        try {
+            SqlStatistics inner = SqlStatementCounter.begin(1);
+            inner.record("select 1", 10);
+            assertThatThrownBy(() -> inner.record("select 1", 10))
+                    .isInstanceOf(QueryBudgetExceededException.class);
+            assertThat(SqlStatementCounter.end()).isSameAs(inner);
+
+            assertThat(inner.getRepeatedShapes()).containsEntry("select 1", 2);
+            assertThat(outer.getStatementCount()).isEqualTo(2); //바깥 범위에도 같이 센다.
+        } finally {
+            assertThat(SqlStatementCounter.end()).isSameAs(outer);
+        }
+    }
+
+    @Test
+    public void propagateTest() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            SqlStatistics statistics = SqlStatementCounter.begin();
+            Future<?> task;
+            try {
+                //다른 스레드에서 실행된 SQL도 같은 범위에 들어간다.
+                task = executor.submit(SqlStatementCounter.propagate(() -> {
+                    SqlStatementCounter.begin().record("select 1", 10);
+                    SqlStatementCounter.end();
+                }));
+            } finally {
+                SqlStatementCounter.end();
+            }
+            task.get(5, TimeUnit.SECONDS);
+            assertThat(statistics.getStatementCount()).isEqualTo(1);
+
+            //끝나면 풀 스레드에 범위가 남지 않는다.
+            assertThatThrownBy(() -> executor.submit(() -> SqlStatementCounter.end()).get(5, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(IllegalStateException.class);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
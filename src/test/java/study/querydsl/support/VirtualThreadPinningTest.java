@@ -0,0 +1,66 @@
+package study.querydsl.support;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import study.querydsl.config.VirtualThreads;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 가상 스레드에서 JDBC/하이버네이트 경로가 캐리어 스레드를 고정(pinning)하는지 확인한다.
+ * JDK 21에서만 돈다. ./gradlew test -PjavaVersion=21 --tests '*VirtualThreadPinningTest'
+ *
+ * 커넥션 풀(10)보다 많은 가상 스레드가 동시에 조회해서 커넥션 대기, 쿼리 실행 중 대기가 모두 일어나게 한다.
+ */
+@SpringBootTest(properties = "member.virtual-threads.pinned-threshold=0ms")
+@ActiveProfiles({"test", "virtual"})
+@EnabledIf("study.querydsl.config.VirtualThreads#isSupported")
+class VirtualThreadPinningTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    VirtualThreadPinningMonitor pinningMonitor;
+
+    @Test
+    public void noPinningInRepositoryCalls() throws Exception {
+        ThreadFactory factory = VirtualThreads.factory("pinning-test-").orElseThrow();
+        long before = pinningMonitor.getPinnedCount();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setAgeGoe(i % 50);
+            Thread thread = factory.newThread(() -> {
+                memberRepository.searchPageComplex(condition, PageRequest.of(0, 10));
+                memberJpaRepository.search(condition);
+                memberRepository.findByUsername("member" + condition.getAgeGoe());
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Thread.sleep(2000); //JFR 이벤트는 약 1초 주기로 전달된다.
+
+        assertThat(pinningMonitor.getPinnedCount() - before)
+                .as("pinned stacks:\n%s", String.join("\n\n", pinningMonitor.getRecentStacks()))
+                .isZero();
+    }
+}